@@ -144,7 +144,7 @@ public class MainActivity extends AppCompatActivity implements
         deactivateControlBox();
         pathSystem.update(null, null);
 
-        pathSystem.draw();
+        pathSystem.startRendering();
     }
 
     /**
@@ -158,10 +158,10 @@ public class MainActivity extends AppCompatActivity implements
 
         if (path == orangePath)
             activateControlBox(ORANGE, orangePath.length(), orangePath.indexOf(point),
-                    point.x, point.y);
+                    point.getX(), point.getY());
         else if (path == greenPath)
             activateControlBox(GREEN, greenPath.length(), greenPath.indexOf(point),
-                    point.x, point.y);
+                    point.getX(), point.getY());
         else
             deactivateControlBox();
 
@@ -194,7 +194,8 @@ public class MainActivity extends AppCompatActivity implements
      */
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        // no resources that need to be freed here
+        // the render thread must not touch the surface anymore
+        pathSystem.stopRendering();
     }
 
     /**
@@ -219,18 +220,24 @@ public class MainActivity extends AppCompatActivity implements
             else
                 newPoint = new VisualPoint(randomX, randomY, GREEN);
 
-            selectedPath.add(newPoint);
+            // the render thread may be drawing the path right now
+            synchronized (pathSystem) {
+                selectedPath.add(newPoint);
+            }
             selectedPoint = newPoint;
             pathSystem.update(selectedPath, selectedPoint);
 
         //  if the "Remove" button is clicked: remove the selected point
         } else if (clickedButton.getId() == R.id.cmd_remove) {
-            selectedPath.remove(seekBar_pointIndex.getProgress());
+            synchronized (pathSystem) {
+                selectedPath.remove(seekBar_pointIndex.getProgress());
+            }
             deactivateControlBox();
             pathSystem.update(null, null);
         }
 
-        pathSystem.draw();
+        // the path's lines changed, so all intersections have to be checked again
+        pathSystem.checkIntersection();
     }
 
     /**
@@ -262,11 +269,11 @@ public class MainActivity extends AppCompatActivity implements
         if (selectedPath == orangePath) {
             radioGroup_pathSelection.check(R.id.radioButton_orange);
             activateControlBox(ORANGE, orangePath.length(), orangePath.indexOf(point),
-                    point.x, point.y);
+                    point.getX(), point.getY());
         } else if (selectedPath == greenPath) {
             radioGroup_pathSelection.check(R.id.radioButton_green);
             activateControlBox(GREEN, greenPath.length(), greenPath.indexOf(point),
-                    point.x, point.y);
+                    point.getX(), point.getY());
         } else {
             deactivateControlBox();
         }
@@ -344,20 +351,18 @@ public class MainActivity extends AppCompatActivity implements
             if (seekBar.getId() == R.id.seekBar_pointIndex) {
                 // if the point selection SeekBar is clicked: update the respective point
                 selectedPoint = selectedPath.get(progress);
-                seekBar_xCoordinate.setProgress((int)selectedPoint.x);
-                seekBar_yCoordinate.setProgress((int)selectedPoint.y);
+                seekBar_xCoordinate.setProgress((int)selectedPoint.getX());
+                seekBar_yCoordinate.setProgress((int)selectedPoint.getY());
 
             } else if (seekBar.getId() == R.id.seekBarX) {
                 // if the X SeekBar is clicked: move the selected point in X direction
-                selectedPoint.x = progress;
-                pathSystem.checkIntersection();
-                pathSystem.draw();
+                pathSystem.movePoint(selectedPath, selectedPath.indexOf(selectedPoint),
+                        progress, selectedPoint.getY());
 
             } else if (seekBar.getId() == R.id.seekBarY) {
                 //  if the Y SeekBar is clicked: move the selected point in Y direction
-                selectedPoint.y = progress;
-                pathSystem.checkIntersection();
-                pathSystem.draw();
+                pathSystem.movePoint(selectedPath, selectedPath.indexOf(selectedPoint),
+                        selectedPoint.getX(), progress);
             }
 
             pathSystem.update(selectedPath, selectedPoint);
@@ -405,7 +410,7 @@ public class MainActivity extends AppCompatActivity implements
                         selectedPath = orangePath;
                         selectedPoint = orangePath.get(0);
                         activateControlBox(ORANGE, orangePath.length(), 0,
-                                orangePath.get(0).x, orangePath.get(0).y);
+                                orangePath.get(0).getX(), orangePath.get(0).getY());
                         pathSystem.update(selectedPath, selectedPoint);
                     }
                     break;
@@ -414,7 +419,7 @@ public class MainActivity extends AppCompatActivity implements
                         selectedPath = greenPath;
                         selectedPoint = greenPath.get(0);
                         activateControlBox(GREEN, greenPath.length(), 0,
-                                greenPath.get(0).x, greenPath.get(0).y);
+                                greenPath.get(0).getX(), greenPath.get(0).getY());
                         pathSystem.update(selectedPath, selectedPoint);
                     }
                     break;
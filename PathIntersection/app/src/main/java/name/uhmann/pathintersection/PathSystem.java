@@ -4,16 +4,27 @@ package name.uhmann.pathintersection;
  * Created by Tobias on 05.02.2017.
  */
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.util.Log;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static name.uhmann.pathintersection.MainActivity.LIGHT_GREY;
 
@@ -25,6 +36,12 @@ import static name.uhmann.pathintersection.MainActivity.LIGHT_GREY;
  * the specified scale factor. That way the drawn graphics aren't device dependent and a zoom
  * function can be implemented. The origin of the coordinate system is not in the upper left corner
  * but in the lower left corner, like in mathematical coordinate systems, instead.
+ *
+ * Drawing happens on a render thread that is paced by the display's vsync. Changes to the scene
+ * don't draw anything but only mark the scene as dirty by {@link #invalidate()}, and the render
+ * thread draws it at most once per frame. Every access to the scene is synchronized on the
+ * {@code PathSystem}, so code that changes its paths directly, e.g. adds points to them, has to
+ * synchronize on it as well.
  */
 public class PathSystem implements View.OnTouchListener {
 
@@ -32,14 +49,151 @@ public class PathSystem implements View.OnTouchListener {
     private List<VisualPath> paths = new ArrayList<>();
     private VisualPath selectedPath;
     private VisualPoint selectedPoint;
+    private int selectedIndex;
+
+    // All lines and all points of all paths in spatial hashes. The paths' ids in the grids are
+    // their indices.
+    private final SegmentGrid grid = new SegmentGrid();
+    private final PointGrid pointGrid;
+    // The paths' bounding boxes in a tree for the clearance check, their ids are their indices
+    // as well.
+    private final PathIndex pathIndex = new PathIndex();
 
+    // Maximum distance in pixels between a touch and the touched point.
+    // Chosen threshold value (40.0) resulted in a good user experience.
+    private static final float TOUCH_RADIUS = 40.0f;
+
+    // Number of pairs of intersecting lines of different paths. It is kept up to date while
+    // points are moved so that only the lines at the moved point need to be checked.
+    private int intersectionCount;
     private boolean anyIntersection;
 
+    // Number of pairs of intersecting lines within each path, in the order of paths. Kept up to
+    // date while points are moved as well.
+    private int[] selfIntersectionCounts = new int[0];
+
+    // grid that the points are snapped to, 0 if they aren't
+    private double resolution;
+    // tolerance of the simplified paths that the parallel check starts with, 0 for none
+    private double tolerance;
+
+    // pool for checking all paths in parallel, null for the sequential incremental check
+    private ForkJoinPool pool;
+
+    // results of the parallel check for each pair of paths, so that only pairs with a changed
+    // path are checked again
+    private final IntersectionCache intersectionCache = new IntersectionCache();
+
+    // The parallel check runs on the pool instead of the UI thread. Only one check is queued at
+    // a time, it covers all changes made before it starts. Its result is posted to the main
+    // thread, where the listeners are notified with the latest result.
+    private final AtomicBoolean checkQueued = new AtomicBoolean();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean latestIntersection;
+
+    // Copies of the paths that the parallel check runs on, so that the paths can be changed and
+    // drawn while it runs. Only the copies of changed paths are brought up to date before a
+    // check, under the PathSystem's lock. The copies and the cache are guarded by checkLock,
+    // which is taken before the PathSystem's lock and never the other way round.
+    private final Object checkLock = new Object();
+    private final List<Path<Point>> copies = new ArrayList<>();
+    private int[] copiedVersions = new int[0];
+
     // The SurfaceHolder is used to lock and unlock (and thereby draw) our Canvas.
     // A reference to the Canvas is hold to be accessible from the different draw methods
     private final SurfaceHolder surfaceHolder;
     private Canvas canvas;
 
+    // Paints are cached per color and width so that drawing doesn't allocate. The vertex buffers
+    // are reused for every batch and only grow. All of them are only used by the render thread.
+    private final Map<Long, Paint> linePaints = new HashMap<>();
+    private final Map<Long, Paint> pointPaints = new HashMap<>();
+    private final Map<Long, Paint> fillPaints = new HashMap<>();
+    private float[] lineBuffer = new float[64];
+    private float[] pointBuffer = new float[32];
+
+    // The render thread draws the scene in a frame callback if it has been marked dirty. Only a
+    // single frame is scheduled at a time, no matter how often the scene changes in between.
+    private HandlerThread renderThread;
+    private Handler renderHandler;
+    private Choreographer choreographer;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // Area in pixels that has to be redrawn in the next frame if only parts of the scene changed,
+    // e.g. a point was dragged. Guarded by the PathSystem's lock.
+    private final Rect damage = new Rect();
+    private boolean fullRedraw = true;
+
+    // Area in pixels that is redrawn by the current frame, used to skip lines and points outside
+    // of it. Only used by the render thread.
+    private final Rect clip = new Rect();
+    private boolean clipped;
+
+    // Offscreen copy of the background and all paths but the selected one. While a point of the
+    // selected path is dragged, a frame only copies the layer and draws the selected path on top.
+    // The layer is only used by the render thread, its validity is guarded by the lock.
+    private Bitmap layer;
+    private Canvas layerCanvas;
+    private VisualPath layerPath;
+    private boolean layerValid;
+
+    // Distance in units around a moved point's lines that is redrawn, covers the lines' width and
+    // the points' circles including the border of the focused point
+    private static final double DAMAGE_MARGIN = 5;
+
+    private final Runnable queuedCheck = new Runnable() {
+        @Override
+        public void run() {
+            // changes from now on queue a check of their own
+            checkQueued.set(false);
+
+            synchronized (checkLock) {
+                ForkJoinPool pool;
+                synchronized (PathSystem.this) {
+                    // the sequential check has been switched on meanwhile
+                    pool = PathSystem.this.pool;
+                    if (pool == null)
+                        return;
+
+                    updateCopies();
+                }
+
+                // the paths may change while the copies are checked
+                boolean intersection = intersectionCache.anyIntersection(copies, pool);
+                synchronized (PathSystem.this) {
+                    latestIntersection = intersection;
+                }
+            }
+            mainHandler.post(deliverCheck);
+        }
+    };
+
+    private final Runnable deliverCheck = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (PathSystem.this) {
+                if (pool != null)
+                    fireIntersectionChangedIfNeeded(latestIntersection);
+            }
+        }
+    };
+
+    private final Runnable scheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            choreographer.postFrameCallback(frameCallback);
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            // reset the flag before drawing so that changes made meanwhile get their own frame
+            if (dirty.getAndSet(false))
+                draw();
+        }
+    };
+
     // scaling factors for transforming length units to pixels and vice versa
     private final double scaleFactor;
     private final int pixelWidth;
@@ -60,6 +214,8 @@ public class PathSystem implements View.OnTouchListener {
         pixelHeight = surfaceView.getHeight();
 
         this.scaleFactor = scaleFactor;
+
+        pointGrid = new PointGrid(getXUnits(TOUCH_RADIUS));
     }
 
     /**
@@ -85,22 +241,202 @@ public class PathSystem implements View.OnTouchListener {
      *
      * @param path Path to add.
      */
-    public void add(VisualPath path) {
+    public synchronized void add(VisualPath path) {
+        if (resolution > 0)
+            path.setResolution(resolution);
+        if (tolerance > 0)
+            path.setTolerance(tolerance);
 
         paths.add(path);
+        grid.add(path);
+        pointGrid.add(path);
+        pathIndex.add(path);
+        selfIntersectionCounts = Arrays.copyOf(selfIntersectionCounts, paths.size());
+
+        checkIntersection();
+        invalidateLayer();
+    }
+
+    /**
+     * Start the render thread. This has to be called when the {@code SurfaceView}'s surface has
+     * been created. The scene is drawn in the first frame.
+     */
+    public void startRendering() {
+        renderThread = new HandlerThread("PathSystem render", Process.THREAD_PRIORITY_DISPLAY);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+
+        // the Choreographer belongs to the thread that gets it
+        renderHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                choreographer = Choreographer.getInstance();
+            }
+        });
+
+        synchronized (this) {
+            fullRedraw = true;
+        }
+        dirty.set(true);
+        renderHandler.post(scheduleFrame);
+    }
+
+    /**
+     * Stop the render thread and wait until it's done. This has to be called before the
+     * {@code SurfaceView}'s surface is destroyed.
+     */
+    public void stopRendering() {
+        if (renderThread == null)
+            return;
+
+        renderThread.quit();
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        renderThread = null;
+        renderHandler = null;
+
+        // the render thread is gone, so the layer can be freed here
+        if (layer != null) {
+            layer.recycle();
+            layer = null;
+            layerCanvas = null;
+        }
+        synchronized (this) {
+            layerValid = false;
+        }
     }
 
     /**
-     * Draw the {@code PathSystem} and all of it's contained elements to the screen
+     * Mark the scene as changed so that it is drawn in the next frame. Can be called from any
+     * thread and any number of times per frame.
      */
-    public void draw() {
-        canvas = surfaceHolder.lockCanvas();
+    public void invalidate() {
+        synchronized (this) {
+            fullRedraw = true;
+        }
+
+        scheduleFrame();
+    }
+
+    /**
+     * Mark the area covered by the lines at a point as changed so that only it is redrawn in the
+     * next frame. Must be called both before and after the point moves, so that its old and new
+     * location are redrawn.
+     */
+    private synchronized void invalidateAround(Polyline path, int index) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+
+        for (int i = Math.max(index - 1, 0); i <= Math.min(index + 1, path.length() - 1); i++) {
+            x0 = Math.min(x0, path.x(i));
+            y0 = Math.min(y0, path.y(i));
+            x1 = Math.max(x1, path.x(i));
+            y1 = Math.max(y1, path.y(i));
+        }
+
+        // the y axis is flipped, so the upper edge in pixels is the largest y in units
+        damage.union((int)Math.floor(getXPixels(x0 - DAMAGE_MARGIN)),
+                (int)Math.floor(getYPixels(y1 + DAMAGE_MARGIN)),
+                (int)Math.ceil(getXPixels(x1 + DAMAGE_MARGIN)),
+                (int)Math.ceil(getYPixels(y0 - DAMAGE_MARGIN)));
+
+        scheduleFrame();
+    }
+
+    private void scheduleFrame() {
+        Handler handler = renderHandler;
+
+        // schedule a frame unless one is already pending
+        if (!dirty.getAndSet(true) && handler != null)
+            handler.post(scheduleFrame);
+    }
+
+    /**
+     * Draw the {@code PathSystem} and all of it's contained elements to the screen. Runs on the
+     * render thread.
+     *
+     * If only a part of the scene has changed since the last frame, only that part of the surface
+     * is locked, cleared and redrawn, and lines and points outside of it are skipped.
+     */
+    private void draw() {
+        synchronized (this) {
+            clipped = !fullRedraw && !damage.isEmpty();
+            if (clipped)
+                clip.set(damage);
+
+            fullRedraw = false;
+            damage.setEmpty();
+        }
+
+        // the surface may enlarge the locked area, it writes the actual area back to clip
+        Canvas canvas = clipped ? surfaceHolder.lockCanvas(clip) : surfaceHolder.lockCanvas();
+        if (canvas == null)
+            return;
+
+        synchronized (this) {
+            if (selectedPath != null) {
+                // the other paths don't change while the selected one is edited
+                if (!layerValid || layerPath != selectedPath)
+                    drawLayer();
+
+                this.canvas = canvas;
+                canvas.drawBitmap(layer, 0, 0, null);
+                selectedPath.draw(this);
+            } else {
+                this.canvas = canvas;
+
+                drawColor(LIGHT_GREY);
+                for (VisualPath path : paths)
+                    path.draw(this);
+            }
+        }
+
+        surfaceHolder.unlockCanvasAndPost(canvas);
+    }
+
+    /**
+     * Draw the background and all paths but the selected one to the layer. Runs on the render
+     * thread.
+     */
+    private void drawLayer() {
+        if (layer == null) {
+            layer = Bitmap.createBitmap(pixelWidth, pixelHeight, Bitmap.Config.ARGB_8888);
+            layerCanvas = new Canvas(layer);
+        }
+
+        // the whole layer is drawn, no matter which part of the screen is redrawn
+        boolean screenClipped = clipped;
+        clipped = false;
+        canvas = layerCanvas;
 
         drawColor(LIGHT_GREY);
         for (VisualPath path : paths)
-            path.draw(this);
+            if (path != selectedPath)
+                path.draw(this);
 
-        surfaceHolder.unlockCanvasAndPost(canvas);
+        clipped = screenClipped;
+        layerPath = selectedPath;
+        layerValid = true;
+    }
+
+    /**
+     * Mark the layer as outdated after a path that is not selected has changed.
+     */
+    private synchronized void invalidateLayer() {
+        layerValid = false;
+        invalidate();
+    }
+
+    /**
+     * Get if a rectangle in pixels overlaps the area that is redrawn by the current frame.
+     */
+    private boolean isInClip(float left, float top, float right, float bottom) {
+        return !clipped || (left <= clip.right && clip.left <= right &&
+                top <= clip.bottom && clip.top <= bottom);
     }
 
     /**
@@ -119,11 +455,94 @@ public class PathSystem implements View.OnTouchListener {
      * @param q Second endpoint of the line.
      */
     public void drawLine(Point p, Point q, double width, int color) {
-        Paint paint = new Paint();
-        paint.setColor(color);
-        paint.setStrokeWidth(getXPixels(width));
+        Paint paint = getPaint(linePaints, color, getXPixels(width), Paint.Cap.BUTT);
+
+        canvas.drawLine(getXPixels(p.getX()), getYPixels(p.getY()),
+                getXPixels(q.getX()), getYPixels(q.getY()), paint);
+    }
+
+    /**
+     * Draw all lines of a path, i.e. the lines between its consecutive points, in a single
+     * batch.
+     *
+     * @param path Path whose lines shall be drawn.
+     * @param width Width of the lines (in units).
+     * @param color Color of the lines.
+     */
+    public void drawLines(Polyline path, double width, int color) {
+        int lineCount = path.length() - 1;
+        if (lineCount < 1)
+            return;
+
+        if (lineBuffer.length < 4 * lineCount)
+            lineBuffer = Arrays.copyOf(lineBuffer, Math.max(4 * lineCount, 2 * lineBuffer.length));
+
+        float pad = getXPixels(width) / 2;
+        int size = 0;
+
+        // every line needs both of its endpoints: x1, y1, x2, y2
+        float px = getXPixels(path.x(0));
+        float py = getYPixels(path.y(0));
+        for (int i = 0; i < lineCount; i++) {
+            float qx = getXPixels(path.x(i + 1));
+            float qy = getYPixels(path.y(i + 1));
+
+            if (isInClip(Math.min(px, qx) - pad, Math.min(py, qy) - pad,
+                    Math.max(px, qx) + pad, Math.max(py, qy) + pad)) {
+                lineBuffer[size++] = px;
+                lineBuffer[size++] = py;
+                lineBuffer[size++] = qx;
+                lineBuffer[size++] = qy;
+            }
+
+            px = qx;
+            py = qy;
+        }
+
+        if (size == 0)
+            return;
+
+        Paint paint = getPaint(linePaints, color, getXPixels(width), Paint.Cap.BUTT);
+        canvas.drawLines(lineBuffer, 0, size, paint);
+    }
+
+    /**
+     * Draw a range of the points of a path as filled circles in a single batch.
+     *
+     * @param path Path whose points shall be drawn.
+     * @param from Index of the first point to draw.
+     * @param to Index after the last point to draw.
+     * @param radius Radius of the circles (in units).
+     * @param color Color of the circles.
+     */
+    public void drawPoints(Polyline path, int from, int to, double radius, int color) {
+        int pointCount = to - from;
+        if (pointCount < 1)
+            return;
+
+        if (pointBuffer.length < 2 * pointCount)
+            pointBuffer = Arrays.copyOf(pointBuffer,
+                    Math.max(2 * pointCount, 2 * pointBuffer.length));
+
+        float pad = getXPixels(radius);
+        int size = 0;
+
+        for (int i = from; i < to; i++) {
+            float x = getXPixels(path.x(i));
+            float y = getYPixels(path.y(i));
+
+            if (isInClip(x - pad, y - pad, x + pad, y + pad)) {
+                pointBuffer[size++] = x;
+                pointBuffer[size++] = y;
+            }
+        }
+
+        if (size == 0)
+            return;
 
-        canvas.drawLine(getXPixels(p.x), getYPixels(p.y), getXPixels(q.x), getYPixels(q.y), paint);
+        // a point drawn with a round cap is a filled circle with the stroke width as diameter
+        Paint paint = getPaint(pointPaints, color, getXPixels(2 * radius), Paint.Cap.ROUND);
+        canvas.drawPoints(pointBuffer, 0, size, paint);
     }
 
     /**
@@ -134,11 +553,28 @@ public class PathSystem implements View.OnTouchListener {
      * @param color Color of the circle.
      */
     public void fillCircle(Point point, double radius, int color) {
-        Paint paint = new Paint();
-        paint.setColor(color);
-        paint.setStrokeWidth(getXPixels(radius));
+        Paint paint = getPaint(fillPaints, color, getXPixels(radius), Paint.Cap.BUTT);
 
-        canvas.drawCircle(getXPixels(point.x), getYPixels(point.y), getXPixels(radius), paint);
+        canvas.drawCircle(getXPixels(point.getX()), getYPixels(point.getY()), getXPixels(radius),
+                paint);
+    }
+
+    /**
+     * Get the cached paint with the specified color and stroke width, create it if needed.
+     */
+    private static Paint getPaint(Map<Long, Paint> paints, int color, float width, Paint.Cap cap) {
+        long key = ((long)color << 32) | (Float.floatToIntBits(width) & 0xffffffffL);
+
+        Paint paint = paints.get(key);
+        if (paint == null) {
+            paint = new Paint();
+            paint.setColor(color);
+            paint.setStrokeWidth(width);
+            paint.setStrokeCap(cap);
+            paints.put(key, paint);
+        }
+
+        return paint;
     }
 
     /**
@@ -188,16 +624,22 @@ public class PathSystem implements View.OnTouchListener {
      *
      * @param point Currently selected {@code Point}.
      */
-    public void update(VisualPath path, VisualPoint point) {
+    public synchronized void update(VisualPath path, VisualPoint point) {
+        // nothing to redraw if the focus doesn't change, e.g. while a seek bar moves the point
+        if (path == selectedPath && point == selectedPoint)
+            return;
+
         if (selectedPoint != null)
             selectedPoint.setFocused(false);
 
         selectedPath = path;
         selectedPoint = point;
-        if (selectedPoint != null)
+        if (selectedPoint != null) {
             selectedPoint.setFocused(true);
+            selectedIndex = selectedPath.indexOf(selectedPoint);
+        }
 
-        draw();
+        invalidate();
     }
 
     /**
@@ -226,47 +668,33 @@ public class PathSystem implements View.OnTouchListener {
         return true;
     }
 
-    private void handleActionDown(MotionEvent event) {
-        // run through all points in all paths and get the minimal distance between the touch
-        // position and a point. If that distance is smaller than a threshold the identified
-        // point is dragged and listeners to the PathSystem's events are notified.
-
-        VisualPoint closestPoint = null;
-        double minDistance = Double.MAX_VALUE;
-        VisualPath selectedPath = null;
+    private synchronized void handleActionDown(MotionEvent event) {
+        // look up the point closest to the touch position in the grid of all points. If its
+        // distance is smaller than a threshold the identified point is dragged and listeners to
+        // the PathSystem's events are notified.
 
-            for (VisualPath path : paths) {
-            for (VisualPoint point : path) {
-                double deltaX = event.getX() - getXPixels(point.x);
-                double deltaY = event.getY() - getYPixels(point.y);
-                double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-
-                Log.d("TAG", "handleActionDown: " + point + " " + distance);
-                if (distance < minDistance) {
-                    closestPoint = point;
-                    minDistance = distance;
-                    selectedPath = path;
-                }
-            }
-        }
+        long closest = pointGrid.nearest(getXUnits(event.getX()), getYUnits(event.getY()),
+                getXUnits(TOUCH_RADIUS));
 
         // selectedPoint can be null if no point was selected previously
         if (selectedPoint != null) {
             selectedPoint.setFocused(false);
         }
 
-        // chosen threshold value (40.0) resulted in a good user experience
-        if (minDistance < 40.0) {
-            selectedPoint = closestPoint;
+        if (closest != -1) {
+            selectedPath = paths.get(PointGrid.idOf(closest));
+            selectedIndex = PointGrid.indexOf(closest);
+            selectedPoint = selectedPath.get(selectedIndex);
             selectedPoint.setFocused(true);
             fireFocusChanged(selectedPath, selectedPoint);
         } else {
             // also notify if no point was touched
             fireFocusChanged(null, null);
+            selectedPath = null;
             selectedPoint = null;
         }
 
-        draw();
+        invalidate();
     }
 
     private void handleActionMove(MotionEvent event) {
@@ -276,30 +704,263 @@ public class PathSystem implements View.OnTouchListener {
             // make sure the new location is within the screen
             if (0 < event.getX() && event.getX() < pixelWidth &&
                     0 < event.getY() && event.getY() < pixelHeight) {
-                selectedPoint.x = getXUnits(event.getX());
-                selectedPoint.y = getYUnits(event.getY());
-
-                checkIntersection();
-                draw();
+                movePoint(selectedPath, selectedIndex,
+                        getXUnits(event.getX()), getYUnits(event.getY()));
             }
         }
     }
 
-    public void checkIntersection() {
-        // iterate through all path segments (pair of consecutive points) and check if the
-        // intersect any path segment of any other path. If so, notify listeners to the
-        // PathSystem events.
+    /**
+     * Move a point of one of the {@code PathSystem}'s paths and update the intersection state.
+     *
+     * Moving a point only changes the two lines that end at it. So instead of checking all paths
+     * again, these two lines are checked against the lines of other paths in the same grid cells
+     * before and after the move and the number of intersecting lines is corrected by the
+     * difference. The cost therefore doesn't depend on the size of the scene.
+     *
+     * The path's self-intersections are kept up to date the same way, by checking the lines at
+     * the point against the path's other lines before and after the move.
+     *
+     * While the parallel check is switched on, the move only queues a check on the pool, see
+     * {@link #setParallelism(ForkJoinPool)}.
+     *
+     * @param path Path that contains the point.
+     * @param index Index of the point in the path.
+     * @param x New x coordinate in units.
+     * @param y New y coordinate in units.
+     */
+    public synchronized void movePoint(VisualPath path, int index, double x, double y) {
+        int id = paths.indexOf(path);
+        int first = Math.max(index - 1, 0);
+        int last = Math.min(index, path.length() - 2);
+        boolean counting = pool == null;
 
-        boolean anyIntersection = false;
+        // the layer has to be redrawn if the point doesn't belong to the selected path
+        if (path != selectedPath)
+            invalidateLayer();
+        invalidateAround(path, index);
 
-        outer:
-        for (int i = 0; i < paths.size(); i++)
-            for (int j = i + 1; j < paths.size(); j++)
-                if (paths.get(i).intersects(paths.get(j))) {
-                    anyIntersection = true;
-                    break outer;
+        // take the lines at the point out of the grid while they are moved
+        for (int line = first; line <= last; line++) {
+            if (counting)
+                intersectionCount -= grid.countIntersections(id, line);
+            grid.remove(id, line);
+        }
+        pointGrid.remove(id, index);
+        int selfCount = selfIntersectionCounts[id] - path.selfIntersectionsAround(index);
+
+        path.set(index, x, y);
+
+        selfCount += path.selfIntersectionsAround(index);
+        setSelfIntersectionCount(id, selfCount);
+        pointGrid.insert(id, index);
+        pathIndex.update(id);
+        for (int line = first; line <= last; line++) {
+            grid.insert(id, line);
+            if (counting)
+                intersectionCount += grid.countIntersections(id, line);
+        }
+
+        if (counting)
+            fireIntersectionChangedIfNeeded(intersectionCount > 0);
+        else
+            queueCheck();
+
+        invalidateAround(path, index);
+    }
+
+    /**
+     * Check all paths for intersections from scratch. This is needed after points have been
+     * added to or removed from a path, moving points is handled by
+     * {@link #movePoint(VisualPath, int, double, double)}.
+     */
+    public synchronized void checkIntersection() {
+        grid.rebuild();
+        pointGrid.rebuild();
+
+        for (int id = 0; id < paths.size(); id++) {
+            pathIndex.update(id);
+
+            final int[] count = new int[1];
+            paths.get(id).selfIntersections(new IntersectionVisitor() {
+                @Override
+                public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                         double x, double y) {
+                    count[0]++;
                 }
+            });
+            setSelfIntersectionCount(id, count[0]);
+        }
+
+        if (pool != null) {
+            // only decide if any paths intersect, spread over the pool's threads and only for
+            // pairs with a path that has changed since the previous check
+            queueCheck();
+            return;
+        }
+
+        // count the path segments (pair of consecutive points) that intersect a path segment of
+        // another path in the same grid cell. If any, notify listeners to the PathSystem events.
+        intersectionCount = grid.countIntersections();
+        fireIntersectionChangedIfNeeded(intersectionCount > 0);
+    }
+
+    /**
+     * Queue a parallel check on the pool unless one is queued already.
+     */
+    private void queueCheck() {
+        if (checkQueued.compareAndSet(false, true))
+            pool.execute(queuedCheck);
+    }
+
+    /**
+     * Bring the copies that the parallel check runs on up to date with the paths. Paths whose
+     * version hasn't changed keep their copy, so the cache keeps their results. Must be called
+     * holding both checkLock and the PathSystem's lock.
+     */
+    private void updateCopies() {
+        copiedVersions = Arrays.copyOf(copiedVersions, paths.size());
+
+        for (int id = 0; id < paths.size(); id++) {
+            VisualPath path = paths.get(id);
+            if (id == copies.size())
+                copies.add(null);
+            else if (copiedVersions[id] == path.getVersion() &&
+                    copies.get(id).getTolerance() == path.getTolerance())
+                continue;
+
+            Path<Point> copy = copies.get(id);
+            if (copy == null || copy.length() != path.length() ||
+                    copy.getResolution() != path.getResolution()) {
+                // the points are already snapped, snapping them again doesn't move them
+                copy = new Path<>();
+                copy.setResolution(path.getResolution());
+                for (int i = 0; i < path.length(); i++)
+                    copy.add(new Point(path.x(i), path.y(i)));
+                copies.set(id, copy);
+            } else {
+                for (int i = 0; i < path.length(); i++)
+                    if (copy.x(i) != path.x(i) || copy.y(i) != path.y(i))
+                        copy.set(i, path.x(i), path.y(i));
+            }
+
+            copy.setTolerance(path.getTolerance());
+            copiedVersions[id] = path.getVersion();
+        }
+    }
 
+    /**
+     * Find all pairs of intersecting lines of different paths and pass them to the visitor one at
+     * a time. Paths are referred to by the order in which they have been added, starting at 0.
+     *
+     * @param visitor Visitor that receives the intersections.
+     */
+    public synchronized void intersections(IntersectionVisitor visitor) {
+        IntersectionSweep.intersections(paths, visitor);
+    }
+
+    /**
+     * Snap the points of all paths to an integer grid, including points that are added or
+     * dragged later. Paths on the same grid are checked for intersections with exact integer
+     * arithmetic, see {@link Path#setResolution(double)}. Touch input is converted to units on a
+     * fixed scale anyway, so a resolution of about a pixel loses nothing that can be seen.
+     *
+     * @param resolution Distance of grid lines in units, 0 to stop snapping.
+     */
+    public synchronized void setResolution(double resolution) {
+        this.resolution = resolution > 0 ? resolution : 0;
+
+        for (VisualPath path : paths)
+            path.setResolution(this.resolution);
+
+        checkIntersection();
+        invalidateLayer();
+    }
+
+    /**
+     * Let the parallel intersection check start with simplified versions of the paths, see
+     * {@link Path#setTolerance(double)}. This pays off for long, densely sampled paths such as
+     * imported tracks: while a point is dragged, only the dragged path is simplified again and
+     * all other pairs keep their cached results anyway. The sequential check counts every pair
+     * of intersecting lines around the dragged point, which the simplified paths can't speed up,
+     * so it ignores the tolerance.
+     *
+     * @param tolerance Largest distance in units that a point may be moved by the
+     *                  simplification, 0 to check the paths at full resolution only.
+     */
+    public synchronized void setTolerance(double tolerance) {
+        this.tolerance = tolerance > 0 ? tolerance : 0;
+
+        for (VisualPath path : paths)
+            path.setTolerance(this.tolerance);
+
+        checkIntersection();
+    }
+
+    /**
+     * Switch between the sequential and the parallel intersection check.
+     *
+     * The sequential check counts the intersecting lines and keeps the count up to date while
+     * points are moved. The parallel check spreads the pairs of paths over the pool's threads and
+     * remembers the result of each pair, so that a move only checks the pairs with the moved
+     * path again. It pays off for scenes with many or long paths but it only decides if any
+     * paths intersect, so the intersection count is not maintained while it is switched on.
+     * The parallel check runs on the pool rather than on the calling thread, on copies of the
+     * paths so that they can be changed meanwhile, and the listeners learn its result a bit
+     * later on the main thread.
+     *
+     * @param pool Pool whose threads check the paths, {@code null} for the sequential check.
+     */
+    public synchronized void setParallelism(ForkJoinPool pool) {
+        this.pool = pool;
+
+        checkIntersection();
+    }
+
+    /**
+     * Get the number of pairs of intersecting lines of different paths. The number is only
+     * maintained by the sequential check, see {@link #setParallelism(ForkJoinPool)}.
+     *
+     * @return Number of intersecting lines, -1 while the parallel check is switched on.
+     */
+    public int getIntersectionCount() {
+        return pool == null ? intersectionCount : -1;
+    }
+
+    /**
+     * Get if all paths of the {@code PathSystem} keep a clearance to each other, i.e. no two of
+     * them come within the specified distance. The paths are kept in a {@link PathIndex}, so
+     * each pair of paths is only checked line by line if their bounding boxes come within the
+     * distance of each other, and the check stops at the first pair that is too close.
+     *
+     * @param distance Clearance in units.
+     * @return {@code true} if all paths are more than the distance apart, {@code false}
+     *         otherwise.
+     */
+    public synchronized boolean isClear(double distance) {
+        return !pathIndex.anyWithinDistance(distance);
+    }
+
+    /**
+     * Get if a path of the {@code PathSystem} crosses or touches itself, as defined by
+     * {@link Path#selfIntersects()}.
+     *
+     * @param path Path to check.
+     * @return {@code true} if the path intersects itself, {@code false} otherwise.
+     */
+    public synchronized boolean selfIntersects(VisualPath path) {
+        return selfIntersectionCounts[paths.indexOf(path)] > 0;
+    }
+
+    private void setSelfIntersectionCount(int id, int count) {
+        boolean selfIntersects = count > 0;
+
+        if (selfIntersects != selfIntersectionCounts[id] > 0)
+            fireSelfIntersectionChanged(paths.get(id), selfIntersects);
+        selfIntersectionCounts[id] = count;
+    }
+
+    private void fireIntersectionChangedIfNeeded(boolean anyIntersection) {
         if (anyIntersection != this.anyIntersection) {
             fireIntersectionChanged(anyIntersection);
             this.anyIntersection = anyIntersection;
@@ -319,7 +980,16 @@ public class PathSystem implements View.OnTouchListener {
         void focusChanged(VisualPath path, VisualPoint point);
     }
 
+    /**
+     * Classes that implement this interface can be registered as listeners to be notified when a
+     * path of a {@code PathSystem} starts or stops intersecting itself.
+     */
+    public interface SelfIntersectionListener {
+        void selfIntersectionChanged(VisualPath path, boolean selfIntersects);
+    }
+
     private ArrayList<PathSystemListener> listeners = new ArrayList<>();
+    private ArrayList<SelfIntersectionListener> selfIntersectionListeners = new ArrayList<>();
 
     /**
      * Add a listener to inform about changes to this {@code PathSystem}.
@@ -339,6 +1009,36 @@ public class PathSystem implements View.OnTouchListener {
         listeners.remove(listener);
     }
 
+    /**
+     * Add a listener to inform about paths that start or stop intersecting themselves.
+     *
+     * @param listener Listener that implements the {@code SelfIntersectionListener} interface.
+     */
+    public void addSelfIntersectionListener(SelfIntersectionListener listener) {
+        selfIntersectionListeners.add(listener);
+    }
+
+    /**
+     * Remove a previously added listener to self-intersection events.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeSelfIntersectionListener(SelfIntersectionListener listener) {
+        selfIntersectionListeners.remove(listener);
+    }
+
+    /**
+     * Notify all registered listeners of a change of a path's self-intersection state.
+     *
+     * @param path Path whose state has changed.
+     * @param selfIntersects The new state. {@code true} if the path intersects itself,
+     *                       {@code false} otherwise.
+     */
+    private void fireSelfIntersectionChanged(VisualPath path, boolean selfIntersects) {
+        for (SelfIntersectionListener listener : selfIntersectionListeners)
+            listener.selfIntersectionChanged(path, selfIntersects);
+    }
+
     /**
      * Notify all registered listeners of a change of the path intersection state.
      *
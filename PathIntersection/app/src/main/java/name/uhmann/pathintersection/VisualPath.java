@@ -19,11 +19,19 @@ public class VisualPath extends Path<VisualPoint> implements Drawable {
     @Override
     public void draw(PathSystem pathSystem) {
         // draw all lines first so that the points are at the top indicating that they are touchable
-        for (int i = 0; i < points.size() - 1; i++)
-            pathSystem.drawLine(points.get(i), points.get(i + 1), 1, DARK_GREY);
+        pathSystem.drawLines(this, 1, DARK_GREY);
 
-        // draw points
+        // the focused point gets a dark border, i.e. a larger dark circle below it
         for (int i = 0; i < points.size(); i++)
-            points.get(i).draw(pathSystem);
+            if (points.get(i).isFocused())
+                pathSystem.fillCircle(points.get(i), 4, DARK_GREY);
+
+        // draw points in batches of consecutive points with the same color
+        int from = 0;
+        for (int i = 1; i <= points.size(); i++)
+            if (i == points.size() || points.get(i).getColor() != points.get(from).getColor()) {
+                pathSystem.drawPoints(this, from, i, 3, points.get(from).getColor());
+                from = i;
+            }
     }
 }
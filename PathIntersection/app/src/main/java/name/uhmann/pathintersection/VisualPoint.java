@@ -25,6 +25,24 @@ public class VisualPoint extends Point implements Drawable {
         this.color = color;
     }
 
+    /**
+     * Get the point's color.
+     *
+     * @return The point's color.
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Get if this point is focused.
+     *
+     * @return {@code true} if the point is focused, {@code false} otherwise.
+     */
+    public boolean isFocused() {
+        return focused;
+    }
+
     /**
      * Set if this point is focused.
      *
@@ -1,16 +0,0 @@
-package name.uhmann.pathintersection;
-
-import org.junit.Test;
-
-import static org.junit.Assert.*;
-
-/**
- * Created by Tobias on 05.02.2017.
- */
-public class PointTest {
-    @Test
-    public void doIntersect() throws Exception {
-
-    }
-
-}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package name.uhmann.pathintersection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Measures the check whether any two paths of a scene intersect, which
+ * {@code PathSystem.checkIntersection()} runs after paths have been added. The grid variant
+ * does what {@code PathSystem} does, the others are the alternatives it could use.
+ *
+ * There are two groups of variants, which must only be compared within their group: the first
+ * ones stop at the first intersection, the {@code count} ones find the number of intersecting
+ * pairs of lines of different paths, as {@code PathSystem} displays it.
+ */
+@State(Scope.Benchmark)
+public class AllPairsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pathCount;
+
+    @Param({"10", "100", "1000"})
+    public int pathLength;
+
+    @Param({Layouts.DISJOINT, Layouts.INTERSECTING})
+    public String layout;
+
+    private List<Path<Point>> paths;
+
+    @Setup
+    public void setup() {
+        paths = Layouts.paths(pathCount, pathLength, layout);
+    }
+
+    @Benchmark
+    public boolean pairwise() {
+        for (int i = 0; i < paths.size(); i++)
+            for (int j = i + 1; j < paths.size(); j++)
+                if (paths.get(i).intersects(paths.get(j)))
+                    return true;
+
+        return false;
+    }
+
+    @Benchmark
+    public boolean sweepLine() {
+        return SweepLine.anyIntersection(paths);
+    }
+
+    @Benchmark
+    public int countPairwise() {
+        int count = 0;
+        for (int i = 0; i < paths.size(); i++)
+            for (int j = i + 1; j < paths.size(); j++)
+                count += BoundingVolumeHierarchy.countIntersections(paths.get(i).getHierarchy(),
+                        paths.get(j).getHierarchy());
+
+        return count;
+    }
+
+    @Benchmark
+    public int countSegmentGrid() {
+        SegmentGrid grid = new SegmentGrid();
+        for (Path<Point> path : paths)
+            grid.add(path);
+        grid.rebuild();
+
+        return grid.countIntersections();
+    }
+
+    @Benchmark
+    public int countSweep() {
+        final int[] count = new int[1];
+        IntersectionSweep.intersections(paths, new IntersectionVisitor() {
+            @Override
+            public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                     double x, double y) {
+                count[0]++;
+            }
+        });
+
+        return count[0];
+    }
+}
@@ -0,0 +1,87 @@
+package name.uhmann.pathintersection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures finding the point closest to a touch, with a {@code PointGrid} as in
+ * {@code PathSystem} and with a scan over all points for comparison.
+ */
+@State(Scope.Benchmark)
+public class HitTestBenchmark {
+
+    private static final int TOUCHES = 256;
+    private static final double RADIUS = 5;
+
+    @Param({"10", "100", "1000"})
+    public int pathCount;
+
+    @Param({"10", "1000"})
+    public int pathLength;
+
+    private List<Path<Point>> paths;
+    private PointGrid grid;
+
+    // x and y coordinates of the touches
+    private double[] touches;
+
+    @Setup
+    public void setup() {
+        paths = Layouts.paths(pathCount, pathLength, Layouts.DISJOINT);
+
+        grid = new PointGrid(RADIUS);
+        for (Path<Point> path : paths)
+            grid.add(path);
+
+        // touch close to random points, so that most touches hit one
+        Random random = new Random(Layouts.SEED);
+        touches = new double[2 * TOUCHES];
+        for (int i = 0; i < touches.length; i += 2) {
+            Path<Point> path = paths.get(random.nextInt(paths.size()));
+            int index = random.nextInt(path.length());
+            touches[i] = path.x(index) + random.nextDouble() * 2 * RADIUS - RADIUS;
+            touches[i + 1] = path.y(index) + random.nextDouble() * 2 * RADIUS - RADIUS;
+        }
+    }
+
+    @Benchmark
+    public long pointGrid() {
+        long sum = 0;
+        for (int i = 0; i < touches.length; i += 2)
+            sum += grid.nearest(touches[i], touches[i + 1], RADIUS);
+
+        return sum;
+    }
+
+    @Benchmark
+    public long scan() {
+        long sum = 0;
+        for (int i = 0; i < touches.length; i += 2) {
+            long nearest = -1;
+            double minDistanceSquared = RADIUS * RADIUS;
+
+            for (int id = 0; id < paths.size(); id++) {
+                Path<Point> path = paths.get(id);
+                for (int index = 0; index < path.length(); index++) {
+                    double deltaX = path.x(index) - touches[i];
+                    double deltaY = path.y(index) - touches[i + 1];
+                    double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+
+                    if (distanceSquared < minDistanceSquared) {
+                        nearest = ((long)id << 32) | index;
+                        minDistanceSquared = distanceSquared;
+                    }
+                }
+            }
+            sum += nearest;
+        }
+
+        return sum;
+    }
+}
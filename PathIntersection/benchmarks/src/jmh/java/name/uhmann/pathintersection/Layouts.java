@@ -0,0 +1,64 @@
+package name.uhmann.pathintersection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@code Layouts} generates reproducible scenes of paths for the benchmarks.
+ *
+ * Every path is a random walk inside its own square tile, and the tiles are arranged in a grid.
+ * In a disjoint layout each walk stays inside its tile, so no two paths intersect while their
+ * bounding boxes still lie close together. In an intersecting layout the walks may wander into
+ * the neighbouring tiles and cross the paths there.
+ */
+class Layouts {
+
+    // fixed seed so that every run measures the same scene
+    static final long SEED = 42;
+
+    // width and height of a tile in units
+    private static final double TILE_SIZE = 100;
+
+    static final String DISJOINT = "disjoint";
+    static final String INTERSECTING = "intersecting";
+
+    /**
+     * Generate a scene of paths.
+     *
+     * @param pathCount Number of paths.
+     * @param pathLength Number of points of each path.
+     * @param layout {@link #DISJOINT} or {@link #INTERSECTING}.
+     * @return The paths, the same ones for the same arguments.
+     */
+    static List<Path<Point>> paths(int pathCount, int pathLength, String layout) {
+        Random random = new Random(SEED);
+        int columns = (int)Math.ceil(Math.sqrt(pathCount));
+
+        // walks in a disjoint layout keep a gap to the tile's border
+        double extent = DISJOINT.equals(layout) ? 0.45 : 1.5;
+        double step = TILE_SIZE / Math.sqrt(pathLength);
+
+        List<Path<Point>> paths = new ArrayList<>();
+        for (int i = 0; i < pathCount; i++) {
+            double centerX = (i % columns + 0.5) * TILE_SIZE;
+            double centerY = (i / columns + 0.5) * TILE_SIZE;
+            double radius = extent * TILE_SIZE;
+
+            Path<Point> path = new Path<>();
+            double x = centerX, y = centerY;
+            for (int j = 0; j < pathLength; j++) {
+                path.add(new Point(x, y));
+                x = clamp(x + (random.nextDouble() * 2 - 1) * step, centerX, radius);
+                y = clamp(y + (random.nextDouble() * 2 - 1) * step, centerY, radius);
+            }
+            paths.add(path);
+        }
+
+        return paths;
+    }
+
+    private static double clamp(double value, double center, double radius) {
+        return Math.max(center - radius, Math.min(center + radius, value));
+    }
+}
@@ -0,0 +1,75 @@
+package name.uhmann.pathintersection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Measures {@link Point#linesIntersect(double, double, double, double, double, double, double,
+ * double)} on batches of line pairs that cross, miss each other or are colinear.
+ */
+@State(Scope.Benchmark)
+public class LinesIntersectBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"crossing", "disjoint", "colinear"})
+    public String layout;
+
+    // eight coordinates per pair of lines
+    private double[] lines;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Layouts.SEED);
+        lines = new double[8 * PAIRS];
+
+        for (int i = 0; i < lines.length; i += 8) {
+            // whole numbers keep colinear lines exactly colinear
+            double x = random.nextInt(100), y = random.nextInt(100);
+            double dx = random.nextInt(9) - 4, dy = 1 + random.nextInt(4);
+
+            // the first line goes from (x, y) - d to (x, y) + d
+            lines[i] = x - dx;
+            lines[i + 1] = y - dy;
+            lines[i + 2] = x + dx;
+            lines[i + 3] = y + dy;
+
+            if ("crossing".equals(layout)) {
+                // the second line goes through (x, y) as well, at a right angle
+                lines[i + 4] = x - dy;
+                lines[i + 5] = y + dx;
+                lines[i + 6] = x + dy;
+                lines[i + 7] = y - dx;
+            } else if ("disjoint".equals(layout)) {
+                // the second line is a copy of the first one, moved sideways
+                lines[i + 4] = x - dx - dy;
+                lines[i + 5] = y - dy + dx;
+                lines[i + 6] = x + dx - dy;
+                lines[i + 7] = y + dy + dx;
+            } else {
+                // the second line continues the first one and overlaps half of it
+                lines[i + 4] = x;
+                lines[i + 5] = y;
+                lines[i + 6] = x + 2 * dx;
+                lines[i + 7] = y + 2 * dy;
+            }
+        }
+    }
+
+    @Benchmark
+    public int linesIntersect() {
+        int count = 0;
+
+        for (int i = 0; i < lines.length; i += 8)
+            if (Point.linesIntersect(lines[i], lines[i + 1], lines[i + 2], lines[i + 3],
+                    lines[i + 4], lines[i + 5], lines[i + 6], lines[i + 7]))
+                count++;
+
+        return count;
+    }
+}
@@ -0,0 +1,48 @@
+package name.uhmann.pathintersection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Measures {@link Path#intersects(Path)} for two neighbouring paths of different lengths.
+ */
+@State(Scope.Benchmark)
+public class PathIntersectsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int pathLength;
+
+    @Param({Layouts.DISJOINT, Layouts.INTERSECTING})
+    public String layout;
+
+    private Path<Point> a, b;
+
+    @Setup
+    public void setup() {
+        List<Path<Point>> paths = Layouts.paths(2, pathLength, layout);
+        a = paths.get(0);
+        b = paths.get(1);
+    }
+
+    /**
+     * The hierarchies are built on the first call and reused afterwards, as while dragging.
+     */
+    @Benchmark
+    public boolean intersects() {
+        return a.intersects(b);
+    }
+
+    /**
+     * Includes building both hierarchies, as for paths that are checked only once.
+     */
+    @Benchmark
+    public boolean intersectsWithoutHierarchies() {
+        return BoundingVolumeHierarchy.intersects(new BoundingVolumeHierarchy(a),
+                new BoundingVolumeHierarchy(b));
+    }
+}
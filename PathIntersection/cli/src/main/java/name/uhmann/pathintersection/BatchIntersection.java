@@ -0,0 +1,157 @@
+package name.uhmann.pathintersection;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@code BatchIntersection} runs the intersection engines over files of paths from the command
+ * line:
+ *
+ * <pre>
+ *     BatchIntersection STORED [PROBES]
+ *     BatchIntersection -convert TEXT BINARY
+ *     BatchIntersection -all BINARY [LINES-PER-TILE]
+ * </pre>
+ *
+ * Text files are in the format of {@link PathReader}, "-" or a missing probe file is read from
+ * standard input. Paths are numbered from 0 in the order of their files.
+ *
+ * The first form checks a stream of probe paths against a set of stored paths. The stored paths
+ * are kept in a {@link PathIndex}, the probes are read, checked and written one at a time, so
+ * memory doesn't grow with the number of probes. For each probe a line with the probe's number
+ * and the numbers of the stored paths that it crosses or touches is written to standard output,
+ * e.g. "3: 0 17".
+ *
+ * The second form converts a text file into a {@link PathFile}. The third one finds all pairs of
+ * intersecting lines of different paths of a {@code PathFile} with a {@link TiledIntersection},
+ * in temporary files next to it, and writes a line "pathA lineA pathB lineB x y" for each.
+ */
+public class BatchIntersection {
+
+    private static final int LINES_PER_TILE = 1 << 20;
+
+    public static void main(String[] args) {
+        try {
+            if (args.length == 3 && "-convert".equals(args[0]))
+                convert(args[1], args[2]);
+            else if ((args.length == 2 || args.length == 3) && "-all".equals(args[0]))
+                all(args[1], args.length == 3 ? Integer.parseInt(args[2]) : LINES_PER_TILE);
+            else if ((args.length == 1 || args.length == 2) && !args[0].startsWith("-"))
+                probe(args[0], args.length == 2 ? args[1] : "-");
+            else
+                usage();
+        } catch (NumberFormatException e) {
+            usage();
+        } catch (IOException e) {
+            System.err.println("BatchIntersection: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: BatchIntersection STORED [PROBES]\n" +
+                "       BatchIntersection -convert TEXT BINARY\n" +
+                "       BatchIntersection -all BINARY [LINES-PER-TILE]");
+        System.exit(2);
+    }
+
+    private static void probe(String stored, String probes) throws IOException {
+        PathIndex index = new PathIndex();
+        try (PathReader reader = open(stored)) {
+            Path<Point> path;
+            while ((path = reader.read()) != null)
+                index.add(path);
+        } catch (IOException e) {
+            throw new IOException(stored + ": " + e.getMessage(), e);
+        }
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (PathReader reader = open(probes)) {
+            run(index, reader, out);
+        } catch (IOException e) {
+            throw new IOException(probes + ": " + e.getMessage(), e);
+        }
+        out.flush();
+    }
+
+    private static void convert(String text, String binary) throws IOException {
+        try (PathReader reader = open(text);
+             PathFileWriter writer = new PathFileWriter(new File(binary))) {
+            Path<Point> path;
+            while ((path = reader.read()) != null)
+                writer.write(path);
+        } catch (IOException e) {
+            throw new IOException(text + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void all(String binary, int linesPerTile) throws IOException {
+        File file = new File(binary).getAbsoluteFile();
+        final Writer out = new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        final IOException[] error = new IOException[1];
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try (PathFile pathFile = PathFile.open(file)) {
+            new TiledIntersection(file.getParentFile(), linesPerTile, pool)
+                    .intersections(pathFile, new IntersectionVisitor() {
+                        @Override
+                        public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                                 double x, double y) {
+                            if (error[0] != null)
+                                return;
+                            try {
+                                out.write(pathA + " " + lineA + " " + pathB + " " + lineB + " " +
+                                        x + " " + y + "\n");
+                            } catch (IOException e) {
+                                error[0] = e;
+                            }
+                        }
+                    });
+        } catch (IOException e) {
+            throw new IOException(binary + ": " + e.getMessage(), e);
+        } finally {
+            pool.shutdown();
+        }
+
+        if (error[0] != null)
+            throw error[0];
+        out.flush();
+    }
+
+    /**
+     * Check every path of the reader against the index and write the results.
+     *
+     * @param index Index of the stored paths.
+     * @param probes Reader of the probes.
+     * @param out Stream to write one line per probe to.
+     * @throws IOException If the probes can't be read or the results can't be written.
+     */
+    static void run(PathIndex index, PathReader probes, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        Path<Point> probe;
+
+        for (int number = 0; (probe = probes.read()) != null; number++) {
+            line.setLength(0);
+            line.append(number).append(':');
+            for (int id : index.intersectingPaths(probe))
+                line.append(' ').append(id);
+            line.append('\n');
+
+            out.write(line.toString());
+        }
+    }
+
+    private static PathReader open(String file) throws IOException {
+        InputStream in = "-".equals(file) ? System.in : new FileInputStream(file);
+        return new PathReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,661 @@
+package name.uhmann.pathintersection;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@code BoundingVolumeHierarchy} is a binary tree of axis-aligned bounding boxes over the lines
+ * of a {@code Polyline}. The root box encloses the whole polyline, every inner node's box encloses
+ * its two children and the leaves enclose a few consecutive lines each.
+ *
+ * Consecutive lines of a path are close to each other, so the lines are simply split into halves
+ * by their index instead of by their location. That makes building the tree a linear operation,
+ * keeps it perfectly balanced and lets it be stored as an implicit tree in plain arrays: the
+ * children of node k are the nodes 2k + 1 and 2k + 2.
+ *
+ * Two polylines are checked for intersection by walking both trees at once. Pairs of nodes whose
+ * boxes don't overlap are skipped together with all of their descendants, so
+ * {@link Point#linesIntersect(Point, Point, Point, Point)} only runs for pairs of leaves that
+ * might actually intersect.
+ *
+ * That is fast as long as the lines are short compared to the distance between the polylines,
+ * which is usual for paths. Long lines that lie close to many lines of the other polyline, e.g.
+ * two interleaved dense tracks, make the boxes of most pairs of leaves overlap though, and the
+ * walk degrades towards testing every pair. When checking two whole polylines, the walk
+ * therefore only tests a number of pairs of leaves proportional to the number of lines. After
+ * that the polylines are handed over to the {@link SweepLine}, which needs O(n log n) for n
+ * lines regardless of their boxes. Paths on the same grid are swept in grid coordinates, so the
+ * result stays the same as that of the grid test of the leaves.
+ */
+public class BoundingVolumeHierarchy {
+
+    // maximum number of lines in a leaf
+    private static final int LEAF_SIZE = 4;
+
+    // pairs of leaves that a walk may test per line of both polylines before it gives up
+    private static final int LEAF_PAIRS_PER_LINE = 1;
+    private static final int MIN_LEAF_PAIRS = 256;
+
+    private final Polyline polyline;
+    private final int lineCount;
+
+    // node boxes and the range of lines [start, end) that each node covers
+    private final double[] minX, minY, maxX, maxY;
+    private final int[] start, end;
+
+    /**
+     * Build the hierarchy over the lines of the specified polyline. The hierarchy reads the
+     * polyline's coordinates on each query, so it has to be refitted when a point moves and
+     * built anew when points are added or removed.
+     *
+     * @param polyline Polyline whose lines shall be enclosed.
+     */
+    public BoundingVolumeHierarchy(Polyline polyline) {
+        this.polyline = polyline;
+        lineCount = max(polyline.length() - 1, 0);
+
+        // the tree is complete down to the level at which all ranges fit into a leaf
+        int levels = 1;
+        while ((lineCount + (1 << (levels - 1)) - 1) >> (levels - 1) > LEAF_SIZE)
+            levels++;
+
+        int nodeCount = (1 << levels) - 1;
+        minX = new double[nodeCount];
+        minY = new double[nodeCount];
+        maxX = new double[nodeCount];
+        maxY = new double[nodeCount];
+        start = new int[nodeCount];
+        end = new int[nodeCount];
+
+        build(0, 0, lineCount);
+    }
+
+    private void build(int node, int from, int to) {
+        start[node] = from;
+        end[node] = to;
+
+        if (isLeaf(node)) {
+            fitLeaf(node);
+        } else {
+            int mid = (from + to) >>> 1;
+            build(2 * node + 1, from, mid);
+            build(2 * node + 2, mid, to);
+            fitInner(node);
+        }
+    }
+
+    boolean isLeaf(int node) {
+        return end[node] - start[node] <= LEAF_SIZE;
+    }
+
+    /**
+     * Get the number of lines that the specified node covers.
+     */
+    int lineCount(int node) {
+        return end[node] - start[node];
+    }
+
+    private void fitLeaf(int node) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+
+        // a range of lines [start, end) has the points [start, end]
+        for (int i = start[node]; i <= end[node] && i < polyline.length(); i++) {
+            double x = polyline.x(i);
+            double y = polyline.y(i);
+            x0 = min(x0, x);
+            y0 = min(y0, y);
+            x1 = max(x1, x);
+            y1 = max(y1, y);
+        }
+
+        minX[node] = x0;
+        minY[node] = y0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+    }
+
+    private void fitInner(int node) {
+        int left = 2 * node + 1;
+        int right = 2 * node + 2;
+
+        minX[node] = min(minX[left], minX[right]);
+        minY[node] = min(minY[left], minY[right]);
+        maxX[node] = max(maxX[left], maxX[right]);
+        maxY[node] = max(maxY[left], maxY[right]);
+    }
+
+    /**
+     * Update the boxes after the point at the specified index has been moved. Only the leaves
+     * of the two lines that end at the point and their ancestors are touched.
+     *
+     * @param pointIndex Index of the moved point in the polyline.
+     */
+    public void refit(int pointIndex) {
+        if (pointIndex > 0)
+            refitLine(pointIndex - 1);
+        if (pointIndex < lineCount)
+            refitLine(pointIndex);
+    }
+
+    private void refitLine(int line) {
+        // walk down to the leaf that contains the line, then refit on the way back up
+        int node = 0;
+        while (!isLeaf(node))
+            node = line < end[2 * node + 1] ? 2 * node + 1 : 2 * node + 2;
+
+        fitLeaf(node);
+        while (node > 0) {
+            node = (node - 1) / 2;
+            fitInner(node);
+        }
+    }
+
+    /**
+     * Get the number of lines in the hierarchy.
+     *
+     * @return Number of lines.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Get the smallest x coordinate of the polyline, i.e. of its bounding box.
+     *
+     * @return Smallest x coordinate in units.
+     */
+    public double getMinX() {
+        return minX[0];
+    }
+
+    /**
+     * Get the smallest y coordinate of the polyline, i.e. of its bounding box.
+     *
+     * @return Smallest y coordinate in units.
+     */
+    public double getMinY() {
+        return minY[0];
+    }
+
+    /**
+     * Get the largest x coordinate of the polyline, i.e. of its bounding box.
+     *
+     * @return Largest x coordinate in units.
+     */
+    public double getMaxX() {
+        return maxX[0];
+    }
+
+    /**
+     * Get the largest y coordinate of the polyline, i.e. of its bounding box.
+     *
+     * @return Largest y coordinate in units.
+     */
+    public double getMaxY() {
+        return maxY[0];
+    }
+
+    private static boolean overlap(BoundingVolumeHierarchy a, int nodeA,
+                                   BoundingVolumeHierarchy b, int nodeB) {
+        return a.minX[nodeA] <= b.maxX[nodeB] && b.minX[nodeB] <= a.maxX[nodeA] &&
+                a.minY[nodeA] <= b.maxY[nodeB] && b.minY[nodeB] <= a.maxY[nodeA];
+    }
+
+    /**
+     * Get if any line of the first hierarchy's polyline crosses or touches any line of the second
+     * one's.
+     *
+     * @param a First hierarchy.
+     * @param b Second hierarchy.
+     * @return {@code true} if the polylines cross or touch, {@code false} otherwise.
+     */
+    public static boolean intersects(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b) {
+        int count = intersections(a, 0, 0, a.lineCount, b, 0, 0, b.lineCount, true,
+                new int[] {leafPairBudget(a, b)});
+        if (count >= 0)
+            return count > 0;
+
+        // The boxes overlap too much for the walk, sweep over all lines instead. Paths on the
+        // same grid are swept in grid coordinates, so they're decided like the grid leaf test.
+        return SweepLine.sweep(Arrays.asList(a.polyline, b.polyline));
+    }
+
+    /**
+     * Get the number of pairs of leaves that {@link #intersects(BoundingVolumeHierarchy,
+     * BoundingVolumeHierarchy)} tests before it sweeps over the lines instead.
+     */
+    static int leafPairBudget(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b) {
+        return max(LEAF_PAIRS_PER_LINE * (a.lineCount + b.lineCount), MIN_LEAF_PAIRS);
+    }
+
+    /**
+     * Get if any line below node {@code nodeA} of the first hierarchy crosses or touches any line
+     * below node {@code nodeB} of the second one, testing at most {@code budget} pairs of leaves.
+     * Node 0 is the root, the children of node k are the nodes 2k + 1 and 2k + 2.
+     *
+     * @return 1 if the lines intersect, 0 if they don't, -1 if the budget ran out first.
+     */
+    static int intersects(BoundingVolumeHierarchy a, int nodeA,
+                          BoundingVolumeHierarchy b, int nodeB, int budget) {
+        return min(intersections(a, nodeA, 0, a.lineCount, b, nodeB, 0, b.lineCount, true,
+                new int[] {budget}), 1);
+    }
+
+    /**
+     * Get the number of pairs of lines, one of the first hierarchy's polyline and one of the
+     * second one's, that cross or touch.
+     *
+     * @param a First hierarchy.
+     * @param b Second hierarchy.
+     * @return Number of intersecting pairs of lines.
+     */
+    public static int countIntersections(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b) {
+        return intersections(a, 0, 0, a.lineCount, b, 0, 0, b.lineCount, false,
+                new int[] {Integer.MAX_VALUE});
+    }
+
+    /**
+     * Get if any of the lines [fromA, toA) of the first hierarchy's polyline crosses or touches
+     * any of the lines [fromB, toB) of the second one's. Nodes that cover none of the lines are
+     * skipped like nodes whose boxes don't overlap.
+     *
+     * @param budget Number of pairs of leaves that may be tested in {@code budget[0]}, the tested
+     *               ones are subtracted. It is left at -1 if it runs out.
+     * @return 1 if the lines intersect, 0 if they don't, -1 if the budget ran out first.
+     */
+    static int intersects(BoundingVolumeHierarchy a, int fromA, int toA,
+                          BoundingVolumeHierarchy b, int fromB, int toB, int[] budget) {
+        return min(intersections(a, 0, fromA, toA, b, 0, fromB, toB, true, budget), 1);
+    }
+
+    /**
+     * Walk both hierarchies and test the pairs of leaves whose boxes overlap, at most
+     * {@code budget[0]} of them. The tested pairs are subtracted from the budget, which is left
+     * at -1 if it runs out.
+     *
+     * @return Number of intersecting pairs of lines, -1 if the budget ran out first.
+     */
+    private static int intersections(BoundingVolumeHierarchy a, int rootA, int fromA, int toA,
+                                     BoundingVolumeHierarchy b, int rootB, int fromB, int toB,
+                                     boolean firstOnly, int[] budget) {
+        if (a.lineCount == 0 || b.lineCount == 0)
+            return 0;
+
+        int count = 0;
+
+        // stack of node pairs that still have to be visited
+        int[] stack = new int[64];
+        int size = 0;
+        stack[size++] = rootA;
+        stack[size++] = rootB;
+
+        while (size > 0) {
+            int nodeB = stack[--size];
+            int nodeA = stack[--size];
+
+            if (!overlap(a, nodeA, b, nodeB) ||
+                    a.end[nodeA] <= fromA || toA <= a.start[nodeA] ||
+                    b.end[nodeB] <= fromB || toB <= b.start[nodeB])
+                continue;
+
+            boolean leafA = a.isLeaf(nodeA);
+            boolean leafB = b.isLeaf(nodeB);
+
+            if (leafA && leafB) {
+                if (budget[0]-- == 0)
+                    return -1;
+
+                count += linesIntersect(a, max(a.start[nodeA], fromA), min(a.end[nodeA], toA),
+                        b, max(b.start[nodeB], fromB), min(b.end[nodeB], toB), firstOnly);
+                if (firstOnly && count > 0)
+                    return count;
+                continue;
+            }
+
+            if (size + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+
+            // descend into the node that covers more lines
+            boolean splitA = leafB || (!leafA &&
+                    a.end[nodeA] - a.start[nodeA] >= b.end[nodeB] - b.start[nodeB]);
+
+            if (splitA) {
+                stack[size++] = 2 * nodeA + 1;
+                stack[size++] = nodeB;
+                stack[size++] = 2 * nodeA + 2;
+                stack[size++] = nodeB;
+            } else {
+                stack[size++] = nodeA;
+                stack[size++] = 2 * nodeB + 1;
+                stack[size++] = nodeA;
+                stack[size++] = 2 * nodeB + 2;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the shortest distance between any line of the first hierarchy's polyline and any line
+     * of the second one's.
+     *
+     * @param a First hierarchy.
+     * @param b Second hierarchy.
+     * @return Distance in units, 0 if the polylines intersect, infinite if one has no lines.
+     */
+    public static double minDistance(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b) {
+        return Math.sqrt(minDistanceSquared(a, b, 0, Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Get if any line of the first hierarchy's polyline is at most the specified distance away
+     * from any line of the second one's.
+     *
+     * @param a First hierarchy.
+     * @param b Second hierarchy.
+     * @param distance Distance in units.
+     * @return {@code true} if the polylines come that close, {@code false} otherwise.
+     */
+    public static boolean withinDistance(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b,
+                                         double distance) {
+        if (distance < 0)
+            return false;
+
+        // Squares are rounded, so search a bit beyond the squared distance and compare the
+        // result the same way as minDistance() does. Stopping a bit before it is always safe.
+        double distanceSquared = distance * distance;
+        double best = minDistanceSquared(a, b, distanceSquared * (1 - 1e-12),
+                distanceSquared * (1 + 1e-12));
+        return Math.sqrt(best) <= distance;
+    }
+
+    /**
+     * Receives the pairs of lines that {@link #linesWithin} finds.
+     */
+    interface LinePairVisitor {
+        /**
+         * @return {@code true} to stop the search, {@code false} to continue it.
+         */
+        boolean visit(int lineA, int lineB);
+    }
+
+    /**
+     * Pass every pair of lines, one of each hierarchy's polyline, that are at most the specified
+     * distance apart to the visitor, until it stops the search. Pairs of nodes whose boxes are
+     * farther apart are skipped. Like the walk of {@link #intersects(BoundingVolumeHierarchy,
+     * BoundingVolumeHierarchy)}, the search only tests a limited number of pairs of leaves.
+     *
+     * @param budget Number of pairs of leaves that may be tested in {@code budget[0]}, the tested
+     *               ones are subtracted. It is left at -1 if it runs out, which stops the search.
+     * @return {@code true} if the visitor stopped the search, {@code false} otherwise.
+     */
+    static boolean linesWithin(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b,
+                               double distance, int[] budget, LinePairVisitor visitor) {
+        if (a.lineCount == 0 || b.lineCount == 0)
+            return false;
+
+        double distanceSquared = distance * distance;
+        Polyline pa = a.polyline;
+        Polyline pb = b.polyline;
+
+        int[] stack = new int[64];
+        int size = 0;
+        stack[size++] = 0;
+        stack[size++] = 0;
+
+        while (size > 0) {
+            int nodeB = stack[--size];
+            int nodeA = stack[--size];
+
+            if (boxDistanceSquared(a, nodeA, b, nodeB) > distanceSquared)
+                continue;
+
+            boolean leafA = a.isLeaf(nodeA);
+            boolean leafB = b.isLeaf(nodeB);
+
+            if (leafA && leafB) {
+                if (budget[0]-- == 0)
+                    return false;
+
+                for (int i = a.start[nodeA]; i < a.end[nodeA]; i++)
+                    for (int j = b.start[nodeB]; j < b.end[nodeB]; j++)
+                        if (Point.linesDistanceSquared(pa.x(i), pa.y(i), pa.x(i + 1), pa.y(i + 1),
+                                pb.x(j), pb.y(j), pb.x(j + 1), pb.y(j + 1)) <= distanceSquared &&
+                                visitor.visit(i, j))
+                            return true;
+                continue;
+            }
+
+            if (size + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+
+            // descend into the node that covers more lines
+            boolean splitA = leafB || (!leafA &&
+                    a.end[nodeA] - a.start[nodeA] >= b.end[nodeB] - b.start[nodeB]);
+
+            if (splitA) {
+                stack[size++] = 2 * nodeA + 1;
+                stack[size++] = nodeB;
+                stack[size++] = 2 * nodeA + 2;
+                stack[size++] = nodeB;
+            } else {
+                stack[size++] = nodeA;
+                stack[size++] = 2 * nodeB + 1;
+                stack[size++] = nodeA;
+                stack[size++] = 2 * nodeB + 2;
+            }
+        }
+
+        return false;
+    }
+
+    private static double boxDistanceSquared(BoundingVolumeHierarchy a, int nodeA,
+                                             BoundingVolumeHierarchy b, int nodeB) {
+        double dx = max(0, max(a.minX[nodeA] - b.maxX[nodeB], b.minX[nodeB] - a.maxX[nodeA]));
+        double dy = max(0, max(a.minY[nodeA] - b.maxY[nodeB], b.minY[nodeB] - a.maxY[nodeA]));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Find the smallest squared distance between the lines of both hierarchies by branch and
+     * bound: the distance of two boxes is a lower bound for the distances of all lines within
+     * them, so pairs of nodes that are farther apart than the closest lines found so far, or than
+     * {@code limitSquared}, are skipped. Closer children are visited first, which finds close
+     * lines early. The search stops as soon as a distance of at most {@code stopSquared} has
+     * been found.
+     */
+    private static double minDistanceSquared(BoundingVolumeHierarchy a, BoundingVolumeHierarchy b,
+                                             double stopSquared, double limitSquared) {
+        double best = Double.POSITIVE_INFINITY;
+        if (a.lineCount == 0 || b.lineCount == 0)
+            return best;
+
+        int[] stack = new int[64];
+        int size = 0;
+        stack[size++] = 0;
+        stack[size++] = 0;
+
+        while (size > 0) {
+            int nodeB = stack[--size];
+            int nodeA = stack[--size];
+
+            if (boxDistanceSquared(a, nodeA, b, nodeB) > min(best, limitSquared))
+                continue;
+
+            boolean leafA = a.isLeaf(nodeA);
+            boolean leafB = b.isLeaf(nodeB);
+
+            if (leafA && leafB) {
+                Polyline pa = a.polyline;
+                Polyline pb = b.polyline;
+
+                for (int i = a.start[nodeA]; i < a.end[nodeA]; i++)
+                    for (int j = b.start[nodeB]; j < b.end[nodeB]; j++)
+                        best = min(best, Point.linesDistanceSquared(
+                                pa.x(i), pa.y(i), pa.x(i + 1), pa.y(i + 1),
+                                pb.x(j), pb.y(j), pb.x(j + 1), pb.y(j + 1)));
+
+                if (best <= stopSquared)
+                    return best;
+                continue;
+            }
+
+            if (size + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+
+            // descend into the node that covers more lines
+            boolean splitA = leafB || (!leafA &&
+                    a.end[nodeA] - a.start[nodeA] >= b.end[nodeB] - b.start[nodeB]);
+
+            int near, far;
+            if (splitA) {
+                near = 2 * nodeA + 1;
+                far = 2 * nodeA + 2;
+                if (boxDistanceSquared(a, near, b, nodeB) > boxDistanceSquared(a, far, b, nodeB)) {
+                    near = far;
+                    far = 2 * nodeA + 1;
+                }
+
+                // the nearer child is pushed last, so it is visited first
+                stack[size++] = far;
+                stack[size++] = nodeB;
+                stack[size++] = near;
+                stack[size++] = nodeB;
+            } else {
+                near = 2 * nodeB + 1;
+                far = 2 * nodeB + 2;
+                if (boxDistanceSquared(a, nodeA, b, near) > boxDistanceSquared(a, nodeA, b, far)) {
+                    near = far;
+                    far = 2 * nodeB + 1;
+                }
+
+                stack[size++] = nodeA;
+                stack[size++] = far;
+                stack[size++] = nodeA;
+                stack[size++] = near;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Get the number of lines of the polyline that cross or touch the line (p - q).
+     *
+     * @param px x coordinate of the line's first endpoint
+     * @param py y coordinate of the line's first endpoint
+     * @param qx x coordinate of the line's second endpoint
+     * @param qy y coordinate of the line's second endpoint
+     * @return Number of intersecting lines.
+     */
+    public int countIntersections(double px, double py, double qx, double qy) {
+        if (lineCount == 0)
+            return 0;
+
+        double x0 = min(px, qx), y0 = min(py, qy);
+        double x1 = max(px, qx), y1 = max(py, qy);
+        int count = 0;
+
+        int[] stack = new int[32];
+        int size = 0;
+        stack[size++] = 0;
+
+        while (size > 0) {
+            int node = stack[--size];
+
+            if (minX[node] > x1 || x0 > maxX[node] || minY[node] > y1 || y0 > maxY[node])
+                continue;
+
+            if (isLeaf(node)) {
+                for (int i = start[node]; i < end[node]; i++)
+                    if (Point.linesIntersect(polyline.x(i), polyline.y(i),
+                            polyline.x(i + 1), polyline.y(i + 1), px, py, qx, qy))
+                        count++;
+                continue;
+            }
+
+            // the tree is balanced, so the stack never grows beyond twice its depth
+            stack[size++] = 2 * node + 1;
+            stack[size++] = 2 * node + 2;
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the number of other lines of the polyline that form a self-intersection with the
+     * specified line, as defined by {@link Path#selfIntersects()}.
+     *
+     * @param line Index of the line in the polyline.
+     * @return Number of lines that intersect the line.
+     */
+    public int countSelfIntersections(int line) {
+        double px = polyline.x(line), py = polyline.y(line);
+        double qx = polyline.x(line + 1), qy = polyline.y(line + 1);
+        double x0 = min(px, qx), y0 = min(py, qy);
+        double x1 = max(px, qx), y1 = max(py, qy);
+        int count = 0;
+
+        int[] stack = new int[32];
+        int size = 0;
+        stack[size++] = 0;
+
+        while (size > 0) {
+            int node = stack[--size];
+
+            if (minX[node] > x1 || x0 > maxX[node] || minY[node] > y1 || y0 > maxY[node])
+                continue;
+
+            if (isLeaf(node)) {
+                for (int i = start[node]; i < end[node]; i++)
+                    if (i != line && Path.linesSelfIntersect(polyline, line, i))
+                        count++;
+                continue;
+            }
+
+            stack[size++] = 2 * node + 1;
+            stack[size++] = 2 * node + 2;
+        }
+
+        return count;
+    }
+
+    private static int linesIntersect(BoundingVolumeHierarchy a, int fromA, int toA,
+                                      BoundingVolumeHierarchy b, int fromB, int toB,
+                                      boolean firstOnly) {
+        Polyline pa = a.polyline;
+        Polyline pb = b.polyline;
+        int count = 0;
+
+        if (Path.onSameGrid(pa, pb)) {
+            Path<?> ga = (Path<?>) pa;
+            Path<?> gb = (Path<?>) pb;
+
+            for (int i = fromA; i < toA; i++)
+                for (int j = fromB; j < toB; j++)
+                    if (Point.gridLinesIntersect(ga.gridX(i), ga.gridY(i),
+                            ga.gridX(i + 1), ga.gridY(i + 1), gb.gridX(j), gb.gridY(j),
+                            gb.gridX(j + 1), gb.gridY(j + 1))) {
+                        count++;
+                        if (firstOnly)
+                            return count;
+                    }
+
+            return count;
+        }
+
+        for (int i = fromA; i < toA; i++)
+            for (int j = fromB; j < toB; j++)
+                if (Point.linesIntersect(pa.x(i), pa.y(i), pa.x(i + 1), pa.y(i + 1),
+                        pb.x(j), pb.y(j), pb.x(j + 1), pb.y(j + 1))) {
+                    count++;
+                    if (firstOnly)
+                        return count;
+                }
+
+        return count;
+    }
+}
@@ -0,0 +1,171 @@
+package name.uhmann.pathintersection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.Math.max;
+import static name.uhmann.pathintersection.ParallelIntersection.INTERSECTING;
+import static name.uhmann.pathintersection.ParallelIntersection.UNCHECKED;
+
+/**
+ * An {@code IntersectionCache} decides if any two of a list of {@code Path}s intersect, like
+ * {@link ParallelIntersection}, but remembers the result of every pair of paths together with
+ * the versions of the paths, see {@link Path#getVersion()}. A check only tests the pairs that
+ * contain a path which has changed since the previous check, or is new at its position in the
+ * list. All other results are reused.
+ *
+ * While one path among n is edited, e.g. while a point is dragged, each check therefore costs
+ * n - 1 pair tests instead of n (n - 1) / 2. The pairs are tested by the tasks of
+ * {@code ParallelIntersection}, which split long pairs into subtrees and stop as soon as any pair
+ * intersects. Pairs that have been skipped that way stay unchecked and are tested by a later
+ * check once no other pair intersects anymore. If a pair that hasn't changed intersects, a check
+ * doesn't need to test anything at all.
+ *
+ * Pairs are checked like {@link Path#intersects(Path)} does, i.e. with the simplified paths first
+ * if a path has a tolerance, see {@link Path#setTolerance(double)}.
+ */
+public class IntersectionCache {
+
+    // paths at each position of the list and their versions that the results belong to
+    private Path<?>[] paths = new Path<?>[0];
+    private int[] versions = new int[0];
+
+    // results of the pairs (i, j) with i < j at index j (j - 1) / 2 + i, as recorded by the
+    // tasks of ParallelIntersection
+    private byte[] results = new byte[0];
+    private int intersectingPairs;
+    private int uncheckedPairs;
+
+    /**
+     * Get if any two of the specified paths intersect. Two paths intersect if any of their lines
+     * cross or touch.
+     *
+     * @param paths Paths to check. They must not be changed while the check is running.
+     * @param pool Pool whose threads test the changed pairs, {@code null} to test them on the
+     *             calling thread.
+     * @return {@code true} if any two paths cross or touch, {@code false} otherwise.
+     */
+    public boolean anyIntersection(List<? extends Path<?>> paths, ForkJoinPool pool) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        int count = paths.size();
+        resize(count);
+
+        // the positions whose path has changed since the previous check
+        boolean[] changed = new boolean[count];
+        boolean anyChanged = false;
+        for (int i = 0; i < count; i++) {
+            Path<?> path = paths.get(i);
+            if (path != this.paths[i] || path.getVersion() != versions[i]) {
+                changed[i] = true;
+                anyChanged = true;
+            }
+        }
+
+        if (anyChanged || (uncheckedPairs > 0 && intersectingPairs == 0))
+            update(paths, changed, pool);
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return intersectingPairs > 0;
+    }
+
+    /**
+     * Forget all results, e.g. after the paths have been changed in a way that their versions
+     * don't reflect.
+     */
+    public void clear() {
+        Arrays.fill(paths, null);
+    }
+
+    /**
+     * Adapt the arrays to a new number of paths. Results of pairs beyond the new number are
+     * dropped, new pairs start out unchecked.
+     */
+    private void resize(int count) {
+        if (count == paths.length)
+            return;
+
+        int pairCount = count * (count - 1) / 2;
+        for (int k = pairCount; k < results.length; k++) {
+            if (results[k] == INTERSECTING)
+                intersectingPairs--;
+            else if (results[k] == UNCHECKED)
+                uncheckedPairs--;
+        }
+        uncheckedPairs += max(pairCount - results.length, 0);
+
+        paths = Arrays.copyOf(paths, count);
+        versions = Arrays.copyOf(versions, count);
+        results = Arrays.copyOf(results, pairCount);
+    }
+
+    /**
+     * Test all pairs that contain a changed path or haven't been checked yet and store their
+     * results.
+     */
+    private void update(List<? extends Path<?>> paths, boolean[] changed, ForkJoinPool pool) {
+        int count = paths.size();
+        Path<?>[] prepared = ParallelIntersection.prepare(paths);
+
+        // the pairs that have to be tested, with their previous results forgotten
+        int pairCount = 0;
+        int[] pairs = new int[16];
+        for (int j = 1; j < count; j++)
+            for (int i = 0; i < j; i++) {
+                int k = j * (j - 1) / 2 + i;
+                if (changed[i] || changed[j] || results[k] == UNCHECKED) {
+                    if (2 * pairCount + 2 > pairs.length)
+                        pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+
+                    pairs[2 * pairCount] = i;
+                    pairs[2 * pairCount + 1] = j;
+                    pairCount++;
+                    forget(k);
+                }
+            }
+
+        // an unchanged pair that intersects decides the check already, the others wait
+        byte[] tested = new byte[pairCount];
+        AtomicBoolean found = new AtomicBoolean(intersectingPairs > 0);
+        ParallelIntersection.PairRangeTask task = new ParallelIntersection.PairRangeTask(
+                prepared, pairs, 0, pairCount, tested, found);
+        if (pool != null)
+            pool.invoke(task);
+        else
+            task.compute();
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            int j = pairs[2 * pair + 1];
+            int k = j * (j - 1) / 2 + pairs[2 * pair];
+
+            // forget() has left the pair unchecked and counted it as such
+            if (tested[pair] != UNCHECKED) {
+                uncheckedPairs--;
+                results[k] = tested[pair];
+                if (tested[pair] == INTERSECTING)
+                    intersectingPairs++;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            this.paths[i] = prepared[i];
+            versions[i] = prepared[i].getVersion();
+        }
+    }
+
+    /**
+     * Drop the result of a pair and count it as unchecked.
+     */
+    private void forget(int k) {
+        if (results[k] == INTERSECTING)
+            intersectingPairs--;
+        if (results[k] != UNCHECKED)
+            uncheckedPairs++;
+
+        results[k] = UNCHECKED;
+    }
+}
@@ -0,0 +1,146 @@
+package name.uhmann.pathintersection;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code IntersectionMetrics} count what the intersection algorithms do: how many pairs of lines
+ * are tested, how many of them are rejected by their bounding boxes, how often the colinear
+ * special case is needed, how many points are visited for hit testing and how long the queries
+ * take.
+ *
+ * Recording is switched on and off per build by {@link #ENABLED}, a compile-time constant that
+ * core/build.gradle generates from the Gradle property {@code pathintersection.metrics}, e.g.
+ * {@code ./gradlew assembleDebug -Ppathintersection.metrics=true}. Every call site is guarded by
+ * {@code if (IntersectionMetrics.ENABLED)}, so javac drops the guarded code from the class files
+ * of the core and of everything compiled against it while the flag is {@code false}, the
+ * default. The hot loops then run exactly as if there were no metrics at all, on any JVM and on
+ * Android alike.
+ *
+ * While enabled, the counters of the installed instance can be read by tests and by the app.
+ * A subclass can be installed to forward the events elsewhere, e.g. to a profiler.
+ */
+public class IntersectionMetrics {
+
+    /**
+     * Switch for recording metrics, {@code true} if the build was run with
+     * {@code -Ppathintersection.metrics=true}. Keep it off for release builds.
+     */
+    public static final boolean ENABLED = BuildFlags.METRICS;
+
+    private static volatile IntersectionMetrics installed = new IntersectionMetrics();
+
+    /**
+     * Get the instance that currently records the metrics.
+     *
+     * @return Installed metrics.
+     */
+    public static IntersectionMetrics get() {
+        return installed;
+    }
+
+    /**
+     * Install the instance that shall record the metrics from now on.
+     *
+     * @param metrics Metrics to install.
+     */
+    public static void install(IntersectionMetrics metrics) {
+        installed = metrics;
+    }
+
+    // atomic as the algorithms may run on several threads
+    private final AtomicLong segmentPairTests = new AtomicLong();
+    private final AtomicLong boundingBoxRejections = new AtomicLong();
+    private final AtomicLong colinearCases = new AtomicLong();
+    private final AtomicLong hitTestCandidates = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+
+    /**
+     * Called for every pair of lines that is tested for intersection.
+     */
+    public void segmentPairTested() {
+        segmentPairTests.incrementAndGet();
+    }
+
+    /**
+     * Called for every pair of lines whose bounding boxes don't overlap.
+     */
+    public void boundingBoxRejected() {
+        boundingBoxRejections.incrementAndGet();
+    }
+
+    /**
+     * Called for every pair of lines that needs the colinear special case.
+     */
+    public void colinearCase() {
+        colinearCases.incrementAndGet();
+    }
+
+    /**
+     * Called for every point that is checked while looking for the touched point.
+     */
+    public void hitTestCandidate() {
+        hitTestCandidates.incrementAndGet();
+    }
+
+    /**
+     * Called after every intersection query.
+     *
+     * @param nanos Duration of the query in nanoseconds.
+     */
+    public void queryFinished(long nanos) {
+        queries.incrementAndGet();
+        queryNanos.addAndGet(nanos);
+    }
+
+    public long getSegmentPairTests() {
+        return segmentPairTests.get();
+    }
+
+    public long getBoundingBoxRejections() {
+        return boundingBoxRejections.get();
+    }
+
+    public long getColinearCases() {
+        return colinearCases.get();
+    }
+
+    public long getHitTestCandidates() {
+        return hitTestCandidates.get();
+    }
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    public long getQueryNanos() {
+        return queryNanos.get();
+    }
+
+    /**
+     * Set all counters back to zero.
+     */
+    public void reset() {
+        segmentPairTests.set(0);
+        boundingBoxRejections.set(0);
+        colinearCases.set(0);
+        hitTestCandidates.set(0);
+        queries.set(0);
+        queryNanos.set(0);
+    }
+
+    /**
+     * Get a string representation that is useful for debugging.
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        return "{ segmentPairTests: " + getSegmentPairTests() +
+                ", boundingBoxRejections: " + getBoundingBoxRejections() +
+                ", colinearCases: " + getColinearCases() +
+                ", hitTestCandidates: " + getHitTestCandidates() +
+                ", queries: " + getQueries() +
+                ", queryNanos: " + getQueryNanos() + " }";
+    }
+}
@@ -0,0 +1,608 @@
+package name.uhmann.pathintersection;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The {@code IntersectionSweep} finds all pairs of intersecting lines of a number of
+ * {@code Polyline}s. It implements the algorithm by Bentley and Ottmann and therefore runs in
+ * O((n + k) log n) for n lines and k intersections, and only needs memory for the lines and the
+ * pending events, never for all candidate pairs.
+ *
+ * Like in the {@code SweepLine}, a vertical line is swept from left to right and the lines that
+ * it currently cuts are kept ordered from bottom to top. Unlike there, lines may cross: the
+ * crossing of two neighbouring lines is added as an event, and at that event both lines swap
+ * their places. All lines through an event point are found in the order, so every pair of lines
+ * is reported exactly once at the point where they meet first.
+ *
+ * The sweep is exact. Crossings are generally not representable as doubles, so they are kept as
+ * exact fractions and everything that depends on them is decided with {@code BigDecimal}
+ * whenever plain double arithmetic isn't precise enough. The reported coordinates of a crossing
+ * are rounded to the nearest double.
+ */
+public class IntersectionSweep {
+
+    // Relative error bound of the double filters below. Generous compared to Shewchuk's bounds
+    // as the operands have already been rounded once.
+    private static final double ERROR_BOUND = 16 * 0x1p-53;
+
+    /**
+     * Find all pairs of intersecting lines of different polylines and pass them to the visitor
+     * as soon as they are found. Lines intersect if they cross or touch.
+     *
+     * @param polylines Polylines to check.
+     * @param visitor Visitor that receives the intersections.
+     */
+    public static void intersections(List<? extends Polyline> polylines,
+                                     IntersectionVisitor visitor) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        new IntersectionSweep(polylines, false, visitor).sweep();
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+    }
+
+    /**
+     * Get if any lines of different polylines intersect. The sweep stops at the first pair, and
+     * crossings of lines of the same polyline are only swapped in the order, never reported.
+     *
+     * @param polylines Polylines to check.
+     * @return {@code true} if any two polylines cross or touch, {@code false} otherwise.
+     */
+    static boolean anyIntersection(List<? extends Polyline> polylines) {
+        IntersectionSweep sweep = new IntersectionSweep(polylines, false, null);
+        sweep.sweep();
+        return sweep.found;
+    }
+
+    /**
+     * Find all pairs of lines of a polyline that intersect each other, as defined by
+     * {@link Path#selfIntersects()}, and pass them to the visitor as soon as they are found.
+     *
+     * @param polyline Polyline to check.
+     * @param visitor Visitor that receives the intersections.
+     */
+    public static void selfIntersections(Polyline polyline, IntersectionVisitor visitor) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        new IntersectionSweep(Collections.singletonList(polyline), true, visitor).sweep();
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+    }
+
+    /* Sweep state */
+
+    private final IntersectionVisitor visitor;
+
+    // polylines on the same grid are swept in grid coordinates, this scales crossings to units
+    private final double scale;
+
+    // report intersections within polylines instead of between them
+    private final boolean self;
+
+    // set at the first intersection if there is no visitor, which ends the sweep
+    private boolean found;
+
+    // event points in sweep order with the lines starting there, null if no line starts there
+    private final TreeMap<EventPoint, List<Segment>> events = new TreeMap<>();
+
+    private final TreeSet<Segment> status = new TreeSet<>(new Comparator<Segment>() {
+        @Override
+        public int compare(Segment a, Segment b) {
+            return compareSegments(a, b);
+        }
+    });
+
+    // event point that is currently handled
+    private EventPoint current;
+
+    private IntersectionSweep(List<? extends Polyline> polylines, boolean self,
+                              IntersectionVisitor visitor) {
+        this.visitor = visitor;
+        this.self = self;
+
+        List<Polyline> gridViews = Path.gridViews(polylines);
+        if (gridViews != null) {
+            scale = ((Path<?>) polylines.get(0)).getResolution();
+            polylines = gridViews;
+        } else {
+            scale = 1;
+        }
+
+        int id = 0;
+        for (int i = 0; i < polylines.size(); i++) {
+            Polyline polyline = polylines.get(i);
+
+            int order = 0;
+            for (int j = 0; j < polyline.length() - 1; j++) {
+                Segment segment = new Segment(id++, i, j, polyline.x(j), polyline.y(j),
+                        polyline.x(j + 1), polyline.y(j + 1));
+
+                // zero-length lines don't count for self-intersections
+                if (self && segment.degenerate)
+                    continue;
+                segment.order = order++;
+
+                EventPoint left = new EventPoint(segment.lx, segment.ly);
+                List<Segment> starting = events.get(left);
+                if (starting == null) {
+                    starting = new ArrayList<>(2);
+                    events.put(left, starting);
+                }
+                starting.add(segment);
+
+                // lines are found in the order when they end, so only the point is needed
+                EventPoint right = new EventPoint(segment.rx, segment.ry);
+                if (!events.containsKey(right))
+                    events.put(right, null);
+            }
+        }
+    }
+
+    /**
+     * Handle the events in sweep order. At each event point the lines ending at or passing
+     * through it are taken out of the order, all lines at the point are reported and the lines
+     * that go on are inserted again in their order to the right of the point.
+     */
+    private void sweep() {
+        // probes compare below and above all lines through the current event point
+        Segment low = new Segment(-1);
+        Segment high = new Segment(1);
+
+        List<Segment> atPoint = new ArrayList<>();
+        List<Segment> inserted = new ArrayList<>();
+
+        while (!events.isEmpty() && !found) {
+            Map.Entry<EventPoint, List<Segment>> event = events.pollFirstEntry();
+            current = event.getKey();
+            List<Segment> starting = event.getValue();
+
+            NavigableSet<Segment> through = status.subSet(low, false, high, false);
+            Segment below = status.lower(low);
+            Segment above = status.higher(high);
+
+            atPoint.clear();
+            atPoint.addAll(through);
+            if (starting != null)
+                atPoint.addAll(starting);
+
+            report(atPoint);
+
+            // lines that don't end here are reordered, zero-length lines are never inserted
+            inserted.clear();
+            for (Segment segment : through)
+                if (!current.isAt(segment.rx, segment.ry))
+                    inserted.add(segment);
+            if (starting != null)
+                for (Segment segment : starting)
+                    if (!segment.degenerate)
+                        inserted.add(segment);
+
+            through.clear();
+            for (Segment segment : inserted) {
+                segment.atEvent = true;
+                status.add(segment);
+            }
+
+            if (inserted.isEmpty()) {
+                if (below != null && above != null)
+                    addCrossing(below, above);
+            } else {
+                // the inserted lines are contiguous, check the outermost against their neighbours
+                addCrossing(below, status.higher(low));
+                addCrossing(status.lower(high), above);
+            }
+
+            for (Segment segment : inserted)
+                segment.atEvent = false;
+        }
+    }
+
+    /**
+     * Report all pairs of lines that meet at the current event point: pairs of lines of different
+     * polylines, or pairs of lines of the same polyline when looking for self-intersections.
+     */
+    private void report(List<Segment> atPoint) {
+        for (int i = 0; i < atPoint.size(); i++)
+            for (int j = i + 1; j < atPoint.size(); j++) {
+                Segment a = atPoint.get(i);
+                Segment b = atPoint.get(j);
+
+                if (self ? a.polyline != b.polyline || consecutiveWithoutOverlap(a, b) :
+                        a.polyline == b.polyline)
+                    continue;
+
+                // overlapping lines meet at many points, they are reported at the first one
+                if (!a.degenerate && !b.degenerate && compareSlopes(a, b) == 0 &&
+                        !isFirstCommonPoint(a, b))
+                    continue;
+
+                if (visitor == null) {
+                    found = true;
+                    return;
+                }
+
+                if (a.polyline > b.polyline || (a.polyline == b.polyline && a.line > b.line)) {
+                    Segment swap = a;
+                    a = b;
+                    b = swap;
+                }
+
+                visitor.intersection(a.polyline, a.line, b.polyline, b.line,
+                        current.x * scale, current.y * scale);
+            }
+    }
+
+    /**
+     * Get if two lines of the same polyline are consecutive, ignoring lines of zero length, and
+     * only share their common point. Consecutive lines that are colinear overlap if they extend
+     * from the common point in the same direction, i.e. share their left or right endpoint.
+     */
+    private static boolean consecutiveWithoutOverlap(Segment a, Segment b) {
+        if (Math.abs(a.order - b.order) != 1)
+            return false;
+
+        return compareSlopes(a, b) != 0 ||
+                !((a.lx == b.lx && a.ly == b.ly) || (a.rx == b.rx && a.ry == b.ry));
+    }
+
+    /**
+     * Get if the current event point is the first point of the overlap of two lines that lie on
+     * top of each other, i.e. the later one of their left endpoints.
+     */
+    private boolean isFirstCommonPoint(Segment a, Segment b) {
+        if (comparePoints(a.lx, a.ly, b.lx, b.ly) >= 0)
+            return current.isAt(a.lx, a.ly);
+        else
+            return current.isAt(b.lx, b.ly);
+    }
+
+    /**
+     * Add the crossing of two neighbouring lines as an event if it lies to the right of the
+     * current event point. Lines that touch at an endpoint or lie on top of each other need no
+     * extra event, their common points are endpoint events already.
+     */
+    private void addCrossing(Segment a, Segment b) {
+        if (a == null || b == null)
+            return;
+
+        if (!Point.linesIntersect(a.lx, a.ly, a.rx, a.ry, b.lx, b.ly, b.rx, b.ry))
+            return;
+
+        if ((a.lx == b.lx && a.ly == b.ly) || (a.lx == b.rx && a.ly == b.ry) ||
+                (a.rx == b.lx && a.ry == b.ly) || (a.rx == b.rx && a.ry == b.ry))
+            return;
+
+        if (compareSlopes(a, b) == 0)
+            return;
+
+        EventPoint crossing = EventPoint.crossing(a, b);
+        if (crossing.compareTo(current) > 0 && !events.containsKey(crossing))
+            events.put(crossing, null);
+    }
+
+    /**
+     * Order lines from bottom to top at the current event point. At least one of the compared
+     * lines always passes through the event point: either it is just being inserted or it is a
+     * probe. The other one is ordered by the side of the event point that it lies on. Lines that
+     * both pass through the event point are ordered by their slope, i.e. by their order right
+     * after the point.
+     */
+    private int compareSegments(Segment a, Segment b) {
+        if (a == b)
+            return 0;
+
+        if (a.probe != 0 && b.probe != 0)
+            return a.probe < b.probe ? -1 : 1;
+        if (a.probe != 0)
+            return compareProbe(a.probe, b);
+        if (b.probe != 0)
+            return -compareProbe(b.probe, a);
+
+        if (a.atEvent && b.atEvent) {
+            int slopes = compareSlopes(a, b);
+            return slopes != 0 ? slopes : (a.id < b.id ? -1 : 1);
+        }
+
+        if (!a.atEvent && !b.atEvent)
+            throw new IllegalStateException("lines compared away from the event point");
+
+        // the event point above b means that a is above b
+        int side = a.atEvent ? sideOfCurrent(b) : -sideOfCurrent(a);
+        return side != 0 ? side : (a.id < b.id ? -1 : 1);
+    }
+
+    private int compareProbe(int probe, Segment segment) {
+        if (segment.atEvent)
+            return probe;
+
+        int side = sideOfCurrent(segment);
+        return side != 0 ? side : probe;
+    }
+
+    /**
+     * Get on which side of the specified line the current event point lies.
+     *
+     * @return 1 if the point is above (left of) the line, -1 if it is below (right of) it and 0
+     * if it lies on the line.
+     */
+    private int sideOfCurrent(Segment segment) {
+        // Lines through the event point are common: the lines at a polyline's point and the
+        // lines whose crossing it is. They would always need the exact computation.
+        if (current.a == null ?
+                current.isAt(segment.lx, segment.ly) || current.isAt(segment.rx, segment.ry) :
+                segment == current.a || segment == current.b)
+            return 0;
+
+        if (current.a == null)
+            return Point.orientation(segment.lx, segment.ly, segment.rx, segment.ry,
+                    current.x, current.y);
+
+        double dx = segment.rx - segment.lx;
+        double dy = segment.ry - segment.ly;
+        double detLeft = dx * (current.y - segment.ly);
+        double detRight = dy * (current.x - segment.lx);
+        double det = detLeft - detRight;
+
+        // the approximated coordinates of the crossing add to the error
+        double errorBound = ERROR_BOUND * (Math.abs(detLeft) + Math.abs(detRight)) +
+                Math.abs(dx) * current.errorY + Math.abs(dy) * current.errorX;
+        if (det > errorBound || -det > errorBound)
+            return det > 0 ? 1 : -1;
+
+        // (r - l) x (p - l) with p = (X / W, Y / W) and W > 0, scaled by W
+        current.computeExact();
+        BigDecimal lx = new BigDecimal(segment.lx);
+        BigDecimal ly = new BigDecimal(segment.ly);
+        BigDecimal exactLeft = new BigDecimal(segment.rx).subtract(lx)
+                .multiply(current.exactY.subtract(ly.multiply(current.weight)));
+        BigDecimal exactRight = new BigDecimal(segment.ry).subtract(ly)
+                .multiply(current.exactX.subtract(lx.multiply(current.weight)));
+
+        return exactLeft.compareTo(exactRight);
+    }
+
+    /**
+     * Order two lines by their slope. Vertical lines are steeper than all others.
+     *
+     * @return -1 if a is less steep than b, 1 if it is steeper and 0 if they are parallel.
+     */
+    private static int compareSlopes(Segment a, Segment b) {
+        double adx = a.rx - a.lx, ady = a.ry - a.ly;
+        double bdx = b.rx - b.lx, bdy = b.ry - b.ly;
+
+        // b is steeper if it is counterclockwise of a, as both point to the right
+        double detLeft = adx * bdy;
+        double detRight = ady * bdx;
+        double det = detLeft - detRight;
+
+        double errorBound = ERROR_BOUND * (Math.abs(detLeft) + Math.abs(detRight));
+        if (det > errorBound || -det > errorBound)
+            return det > 0 ? -1 : 1;
+
+        BigDecimal exactLeft = new BigDecimal(a.rx).subtract(new BigDecimal(a.lx))
+                .multiply(new BigDecimal(b.ry).subtract(new BigDecimal(b.ly)));
+        BigDecimal exactRight = new BigDecimal(a.ry).subtract(new BigDecimal(a.ly))
+                .multiply(new BigDecimal(b.rx).subtract(new BigDecimal(b.lx)));
+
+        return exactRight.compareTo(exactLeft);
+    }
+
+    /**
+     * Compare points lexicographically: from left to right, and from bottom to top for equal x.
+     */
+    private static int comparePoints(double ax, double ay, double bx, double by) {
+        if (ax != bx)
+            return ax < bx ? -1 : 1;
+        if (ay != by)
+            return ay < by ? -1 : 1;
+        return 0;
+    }
+
+    private static class Segment {
+        final int id;
+        final int polyline;
+        final int line;
+
+        // position among the polyline's lines of non-zero length, for self-intersections
+        int order;
+
+        // endpoints in sweep order
+        final double lx, ly, rx, ry;
+        final boolean degenerate;
+
+        // -1 or 1 for probes that are ordered below or above all lines through the event point
+        final int probe;
+
+        // true while the line is inserted at the current event point
+        boolean atEvent;
+
+        Segment(int id, int polyline, int line, double px, double py, double qx, double qy) {
+            this.id = id;
+            this.polyline = polyline;
+            this.line = line;
+
+            boolean pFirst = comparePoints(px, py, qx, qy) <= 0;
+            lx = pFirst ? px : qx;
+            ly = pFirst ? py : qy;
+            rx = pFirst ? qx : px;
+            ry = pFirst ? qy : py;
+
+            degenerate = lx == rx && ly == ry;
+            probe = 0;
+        }
+
+        Segment(int probe) {
+            this.id = -1;
+            this.polyline = -1;
+            this.line = -1;
+            this.lx = this.ly = this.rx = this.ry = 0;
+            this.degenerate = true;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * An event point. Endpoints are stored as they are. Crossings are approximated by doubles
+     * with a bound of the approximation error. Only if that isn't precise enough, their exact
+     * coordinates are computed as fractions (X / W, Y / W).
+     */
+    private static class EventPoint implements Comparable<EventPoint> {
+        final double x, y;
+        final double errorX, errorY;
+
+        // the lines whose crossing this is, null for endpoints
+        final Segment a, b;
+
+        // exact coordinates, computed when needed
+        BigDecimal exactX, exactY, weight;
+
+        EventPoint(double x, double y) {
+            this.x = x;
+            this.y = y;
+            errorX = errorY = 0;
+            a = b = null;
+        }
+
+        private EventPoint(double x, double y, double errorX, double errorY,
+                           Segment a, Segment b) {
+            this.x = x;
+            this.y = y;
+            this.errorX = errorX;
+            this.errorY = errorY;
+            this.a = a;
+            this.b = b;
+        }
+
+        /**
+         * Get the crossing of two lines that cross in a single point.
+         */
+        static EventPoint crossing(Segment a, Segment b) {
+            double dxA = a.rx - a.lx, dyA = a.ry - a.ly;
+            double dxB = b.rx - b.lx, dyB = b.ry - b.ly;
+            double dx = b.lx - a.lx, dy = b.ly - a.ly;
+
+            // crossing = l1 + t (r1 - l1) with t = ((l2 - l1) x d2) / (d1 x d2)
+            double denominator = dxA * dyB - dyA * dxB;
+            double numerator = dx * dyB - dy * dxB;
+            double errorDenominator = ERROR_BOUND * (Math.abs(dxA * dyB) + Math.abs(dyA * dxB));
+            double errorNumerator = ERROR_BOUND * (Math.abs(dx * dyB) + Math.abs(dy * dxB));
+
+            if (Math.abs(denominator) > 2 * errorDenominator) {
+                double t = numerator / denominator;
+                double errorT = (errorNumerator + Math.abs(t) * errorDenominator) /
+                        (Math.abs(denominator) - errorDenominator) + ERROR_BOUND * Math.abs(t);
+
+                double x = a.lx + t * dxA;
+                double y = a.ly + t * dyA;
+                return new EventPoint(x, y,
+                        errorT * Math.abs(dxA) + ERROR_BOUND * (Math.abs(t * dxA) + Math.abs(x)),
+                        errorT * Math.abs(dyA) + ERROR_BOUND * (Math.abs(t * dyA) + Math.abs(y)),
+                        a, b);
+            }
+
+            // nearly parallel lines: round the exact crossing
+            EventPoint crossing = new EventPoint(0, 0, 0, 0, a, b);
+            crossing.computeExact();
+            double x = crossing.exactX.divide(crossing.weight, MathContext.DECIMAL128)
+                    .doubleValue();
+            double y = crossing.exactY.divide(crossing.weight, MathContext.DECIMAL128)
+                    .doubleValue();
+
+            EventPoint rounded = new EventPoint(x, y, 2 * Math.ulp(x), 2 * Math.ulp(y), a, b);
+            rounded.exactX = crossing.exactX;
+            rounded.exactY = crossing.exactY;
+            rounded.weight = crossing.weight;
+            return rounded;
+        }
+
+        /**
+         * Compute the exact coordinates if they haven't been computed yet.
+         */
+        void computeExact() {
+            if (weight != null)
+                return;
+
+            if (a == null) {
+                exactX = new BigDecimal(x);
+                exactY = new BigDecimal(y);
+                weight = BigDecimal.ONE;
+                return;
+            }
+
+            BigDecimal x1 = new BigDecimal(a.lx), y1 = new BigDecimal(a.ly);
+            BigDecimal x3 = new BigDecimal(b.lx), y3 = new BigDecimal(b.ly);
+            BigDecimal dxA = new BigDecimal(a.rx).subtract(x1);
+            BigDecimal dyA = new BigDecimal(a.ry).subtract(y1);
+            BigDecimal dxB = new BigDecimal(b.rx).subtract(x3);
+            BigDecimal dyB = new BigDecimal(b.ry).subtract(y3);
+
+            BigDecimal denominator = dxA.multiply(dyB).subtract(dyA.multiply(dxB));
+            BigDecimal numerator = x3.subtract(x1).multiply(dyB)
+                    .subtract(y3.subtract(y1).multiply(dxB));
+
+            if (denominator.signum() < 0) {
+                denominator = denominator.negate();
+                numerator = numerator.negate();
+            }
+
+            exactX = x1.multiply(denominator).add(numerator.multiply(dxA));
+            exactY = y1.multiply(denominator).add(numerator.multiply(dyA));
+            weight = denominator;
+        }
+
+        boolean isAt(double x, double y) {
+            if (a == null)
+                return this.x == x && this.y == y;
+
+            if (Math.abs(this.x - x) > errorX || Math.abs(this.y - y) > errorY)
+                return false;
+
+            return compareTo(new EventPoint(x, y)) == 0;
+        }
+
+        @Override
+        public int compareTo(EventPoint other) {
+            // the same crossing is found again whenever its lines become neighbours again
+            if (a != null && ((a == other.a && b == other.b) || (a == other.b && b == other.a)))
+                return 0;
+
+            int result = compareCoordinate(x, errorX, other.x, other.errorX);
+            if (result == 0 && (errorX != 0 || other.errorX != 0)) {
+                computeExact();
+                other.computeExact();
+                result = exactX.multiply(other.weight).compareTo(other.exactX.multiply(weight));
+            }
+            if (result != 0)
+                return result;
+
+            result = compareCoordinate(y, errorY, other.y, other.errorY);
+            if (result == 0 && (errorY != 0 || other.errorY != 0)) {
+                computeExact();
+                other.computeExact();
+                result = exactY.multiply(other.weight).compareTo(other.exactY.multiply(weight));
+            }
+            return result;
+        }
+
+        /**
+         * Compare approximated coordinates. Returns 0 if they are too close to tell.
+         */
+        private static int compareCoordinate(double a, double errorA, double b, double errorB) {
+            if (Math.abs(a - b) > errorA + errorB || (a != b && errorA == 0 && errorB == 0))
+                return a < b ? -1 : 1;
+
+            return 0;
+        }
+    }
+}
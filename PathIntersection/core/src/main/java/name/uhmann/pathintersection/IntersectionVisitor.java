@@ -0,0 +1,25 @@
+package name.uhmann.pathintersection;
+
+/**
+ * An {@code IntersectionVisitor} receives intersections one at a time while they are being
+ * found, so that they can be processed without collecting all of them first.
+ *
+ * Lines are referred to by the index of their polyline and by the index of their first point in
+ * it, i.e. line i connects the points i and i + 1.
+ */
+public interface IntersectionVisitor {
+
+    /**
+     * Called once for every pair of intersecting lines. Lines that lie on top of each other
+     * report the first point of their overlap, i.e. the one with the smallest x coordinate, or
+     * the smallest y coordinate if their x coordinates are equal.
+     *
+     * @param pathA Index of the first line's polyline.
+     * @param lineA Index of the first line in its polyline.
+     * @param pathB Index of the second line's polyline.
+     * @param lineB Index of the second line in its polyline.
+     * @param x X coordinate of the intersection in units.
+     * @param y Y coordinate of the intersection in units.
+     */
+    void intersection(int pathA, int lineA, int pathB, int lineB, double x, double y);
+}
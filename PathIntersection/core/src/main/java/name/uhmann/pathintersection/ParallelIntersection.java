@@ -0,0 +1,237 @@
+package name.uhmann.pathintersection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@code ParallelIntersection} decides if any two of a number of {@code Path}s intersect, using
+ * all threads of a {@code ForkJoinPool}.
+ *
+ * The pairs of paths whose bounding boxes overlap are split into ranges that are checked by
+ * separate tasks. A pair of long paths is split further into tasks that each check a subtree of
+ * the first path's {@code BoundingVolumeHierarchy} against the second path. All tasks share a
+ * flag that is set as soon as one of them finds an intersection, so the remaining tasks return
+ * without doing any work.
+ *
+ * The result is the same as checking all pairs sequentially with {@link Path#intersects(Path)}.
+ * The tasks are shared with the {@link IntersectionCache}, which also lets them record the
+ * result of each pair.
+ */
+public class ParallelIntersection {
+
+    // ranges of at most this many pairs of paths are checked by a single task
+    private static final int PAIRS_PER_TASK = 16;
+
+    // pairs of paths with more lines than this are split into several tasks
+    private static final int LINES_PER_TASK = 4096;
+
+    // results of a pair as recorded by the tasks
+    static final byte UNCHECKED = 0;        // skipped after another pair has intersected
+    static final byte CLEAR = 1;
+    static final byte INTERSECTING = 2;
+
+    /**
+     * Get if any two of the specified paths intersect. Two paths intersect if any of their lines
+     * cross or touch.
+     *
+     * @param paths Paths to check. They must not be changed while the check is running.
+     * @param pool Pool whose threads run the check.
+     * @return {@code true} if any two paths cross or touch, {@code false} otherwise.
+     */
+    public static boolean anyIntersection(List<? extends Path<?>> paths, ForkJoinPool pool) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        Path<?>[] prepared = prepare(paths);
+
+        // broad phase: only pairs whose bounding boxes overlap need to be checked
+        int pairCount = 0;
+        int[] pairs = new int[16];
+        for (int i = 0; i < prepared.length; i++)
+            for (int j = i + 1; j < prepared.length; j++)
+                if (boundsOverlap(prepared[i], prepared[j])) {
+                    if (2 * pairCount + 2 > pairs.length)
+                        pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+
+                    pairs[2 * pairCount] = i;
+                    pairs[2 * pairCount + 1] = j;
+                    pairCount++;
+                }
+
+        AtomicBoolean found = new AtomicBoolean();
+        pool.invoke(new PairRangeTask(prepared, pairs, 0, pairCount, null, found));
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return found.get();
+    }
+
+    /**
+     * Build the hierarchies and simplified paths up front, which are built lazily and therefore
+     * not thread safe.
+     *
+     * @return The paths as an array.
+     */
+    static Path<?>[] prepare(List<? extends Path<?>> paths) {
+        boolean simplified = false;
+        for (Path<?> path : paths)
+            simplified |= path.getTolerance() > 0;
+
+        Path<?>[] prepared = paths.toArray(new Path<?>[paths.size()]);
+        for (Path<?> path : prepared)
+            path.prepare(simplified);
+
+        return prepared;
+    }
+
+    private static boolean boundsOverlap(Path<?> pathA, Path<?> pathB) {
+        BoundingVolumeHierarchy a = pathA.getHierarchy();
+        BoundingVolumeHierarchy b = pathB.getHierarchy();
+
+        return a.getLineCount() > 0 && b.getLineCount() > 0 &&
+                a.getMinX() <= b.getMaxX() && b.getMinX() <= a.getMaxX() &&
+                a.getMinY() <= b.getMaxY() && b.getMinY() <= a.getMaxY();
+    }
+
+    /**
+     * Checks the pairs of paths [from, to) of the pair list. Ranges are only split while running
+     * in a pool, on any other thread the task checks all pairs itself.
+     */
+    static class PairRangeTask extends RecursiveAction {
+        private final Path<?>[] paths;
+        private final int[] pairs;
+        private final int from, to;
+        private final byte[] results;
+        private final AtomicBoolean found;
+
+        /**
+         * @param paths Paths, prepared by {@link #prepare(List)}.
+         * @param pairs Indices of both paths of each pair, one pair after the other.
+         * @param from Index of the first pair to check.
+         * @param to Index after the last pair to check.
+         * @param results Receives the result of each pair, {@code null} if only the flag is of
+         *                interest. Pairs that are skipped keep {@link #UNCHECKED}.
+         * @param found Flag that is set when a pair intersects, after which all tasks stop.
+         */
+        PairRangeTask(Path<?>[] paths, int[] pairs, int from, int to, byte[] results,
+                      AtomicBoolean found) {
+            this.paths = paths;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get())
+                return;
+
+            if (to - from > PAIRS_PER_TASK && inForkJoinPool()) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PairRangeTask(paths, pairs, from, mid, results, found),
+                        new PairRangeTask(paths, pairs, mid, to, results, found));
+                return;
+            }
+
+            for (int pair = from; pair < to && !found.get(); pair++) {
+                byte result = check(paths[pairs[2 * pair]], paths[pairs[2 * pair + 1]]);
+                if (results != null)
+                    results[pair] = result;
+            }
+        }
+
+        private byte check(Path<?> pathA, Path<?> pathB) {
+            if (!boundsOverlap(pathA, pathB))
+                return CLEAR;
+
+            BoundingVolumeHierarchy a = pathA.getHierarchy();
+            BoundingVolumeHierarchy b = pathB.getHierarchy();
+
+            // Split the longer path of a long pair into subtrees. Paths with a tolerance are
+            // checked as a whole, starting with their simplified versions.
+            if (a.getLineCount() < b.getLineCount()) {
+                BoundingVolumeHierarchy swap = a;
+                a = b;
+                b = swap;
+            }
+
+            if (a.getLineCount() > LINES_PER_TASK && inForkJoinPool() &&
+                    pathA.getTolerance() == 0 && pathB.getTolerance() == 0) {
+                AtomicBoolean hit = new AtomicBoolean();
+                AtomicBoolean exhausted = new AtomicBoolean();
+                new SubtreeTask(a, 0, b, BoundingVolumeHierarchy.leafPairBudget(a, b), hit,
+                        exhausted, found).invoke();
+
+                if (hit.get())
+                    return INTERSECTING;
+
+                // subtrees may have been skipped after another pair intersected
+                if (found.get())
+                    return UNCHECKED;
+
+                if (!exhausted.get())
+                    return CLEAR;
+
+                // the boxes overlap too much for the walk, go on like the sequential check
+            }
+
+            if (!Path.intersects(pathA, pathB))
+                return CLEAR;
+
+            found.set(true);
+            return INTERSECTING;
+        }
+    }
+
+    /**
+     * Checks the lines below a node of one hierarchy against all lines of another one. The tasks
+     * of a pair share the number of pairs of leaves that a sequential check tests before it
+     * gives up, in proportion to the lines of their subtrees. If any task runs out of its share,
+     * all of them stop and the pair is checked as a whole with {@link Path#intersects(Path)}.
+     */
+    private static class SubtreeTask extends RecursiveAction {
+        private final BoundingVolumeHierarchy a, b;
+        private final int node;
+        private final int budget;
+        private final AtomicBoolean hit, exhausted, found;
+
+        SubtreeTask(BoundingVolumeHierarchy a, int node, BoundingVolumeHierarchy b, int budget,
+                    AtomicBoolean hit, AtomicBoolean exhausted, AtomicBoolean found) {
+            this.a = a;
+            this.node = node;
+            this.b = b;
+            this.budget = budget;
+            this.hit = hit;
+            this.exhausted = exhausted;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get() || exhausted.get())
+                return;
+
+            if (a.lineCount(node) > LINES_PER_TASK && !a.isLeaf(node)) {
+                int left = 2 * node + 1;
+                int leftBudget = (int) ((long) budget * a.lineCount(left) / a.lineCount(node));
+                invokeAll(new SubtreeTask(a, left, b, leftBudget, hit, exhausted, found),
+                        new SubtreeTask(a, left + 1, b, budget - leftBudget, hit, exhausted,
+                                found));
+                return;
+            }
+
+            int result = BoundingVolumeHierarchy.intersects(a, node, b, 0, budget);
+            if (result > 0) {
+                hit.set(true);
+                found.set(true);
+            } else if (result < 0) {
+                exhausted.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,719 @@
+package name.uhmann.pathintersection;
+
+/**
+ * Created by Tobias on 05.02.2017.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@code Path} is a sequence of connected {@code Point}s. It provides means for checking if
+ * it intersects another {@code Path}.
+ *
+ * Besides the point objects the path keeps their coordinates packed in two arrays. The
+ * intersection algorithms only read these arrays which is far more cache friendly than following
+ * a reference to each point. Therefore the points of a path must not be moved by assigning their
+ * coordinates directly but by calling {@link #set(int, double, double)}.
+ *
+ * @param <P> Type of point. Must be a subtype of {@code Point}, e.g. {@code VisualPoint}.
+ */
+public class Path<P extends Point> implements Iterable<P>, Polyline {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    protected ArrayList<P> points = new ArrayList<>();
+
+    // coordinates of the points, only the first points.size() entries are valid
+    protected double[] xs = new double[INITIAL_CAPACITY];
+    protected double[] ys = new double[INITIAL_CAPACITY];
+
+    // bounding boxes over the path's lines, built when needed and dropped when points are added
+    // or removed
+    private BoundingVolumeHierarchy hierarchy;
+
+    // grid that the points are snapped to, 0 if they aren't, and their grid coordinates
+    private double resolution;
+    private int[] gridXs, gridYs;
+
+    // simplified version that intersection checks start with, built when needed and dropped
+    // whenever the path changes
+    private double tolerance;
+    private SimplifiedPath simplified;
+
+    // number of changes to the points, so that results about the path can be cached
+    private int version;
+
+    /**
+     * Get the point at the specified index.
+     *
+     * @param index Point's index in the path.
+     * @return The {@code Point} object.
+     */
+    public P get(int index) {
+        return points.get(index);
+    }
+
+    /**
+     * Add a point to the end of the path.
+     *
+     * @param point Point to be added.
+     */
+    public void add(P point) {
+        int size = points.size();
+
+        // grow by half of the current capacity like ArrayList does
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size + (size >> 1));
+            ys = Arrays.copyOf(ys, size + (size >> 1));
+            if (resolution > 0) {
+                gridXs = Arrays.copyOf(gridXs, xs.length);
+                gridYs = Arrays.copyOf(gridYs, ys.length);
+            }
+        }
+
+        place(point, size, point.getX(), point.getY());
+        points.add(point);
+
+        hierarchy = null;
+        simplified = null;
+        version++;
+    }
+
+    /**
+     * Move the point at the specified index to a new location.
+     *
+     * @param index Index of the point that shall be moved.
+     * @param x New x coordinate in units.
+     * @param y New y coordinate in units.
+     */
+    public void set(int index, double x, double y) {
+        place(points.get(index), index, x, y);
+
+        if (hierarchy != null)
+            hierarchy.refit(index);
+        simplified = null;
+        version++;
+    }
+
+    /**
+     * Remove the specified point from the path.
+     *
+     * @param point Point to be removed.
+     */
+    public void remove(P point) {
+        int index = points.indexOf(point);
+        if (index != -1)
+            remove(index);
+    }
+
+    /**
+     * Remove the point at the specified index from the path.
+     *
+     * @param index Index of point that shall be removed.
+     */
+    public void remove(int index) {
+        if (length() > 1) {
+            points.remove(index);
+
+            // close the gap in the coordinate arrays
+            System.arraycopy(xs, index + 1, xs, index, points.size() - index);
+            System.arraycopy(ys, index + 1, ys, index, points.size() - index);
+            if (resolution > 0) {
+                System.arraycopy(gridXs, index + 1, gridXs, index, points.size() - index);
+                System.arraycopy(gridYs, index + 1, gridYs, index, points.size() - index);
+            }
+
+            hierarchy = null;
+            simplified = null;
+            version++;
+        }
+    }
+
+    /**
+     * Get the length of the {@code Path}
+     *
+     * @return Length of the {@code Path}
+     */
+    @Override
+    public int length() {
+        return points.size();
+    }
+
+    /**
+     * Get the x coordinate of the point at the specified index.
+     *
+     * @param index Point's index in the path.
+     * @return X coordinate in units.
+     */
+    @Override
+    public double x(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Get the y coordinate of the point at the specified index.
+     *
+     * @param index Point's index in the path.
+     * @return Y coordinate in units.
+     */
+    @Override
+    public double y(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Get the position of the specified {@code Point} in the {@code Path}.
+     *
+     * @param point Point whose index position to get.
+     * @return Index position of the specified point.
+     */
+    public int indexOf(P point) {
+        return points.indexOf(point);
+    }
+
+    /**
+     * Gets if this {@code Path} intersects another one. Two paths intersect if any of their lines
+     * cross or touch.
+     *
+     * @param other The other path.
+     * @return {@code true} if the paths cross or touch, {@code false} otherwise.
+     */
+    public boolean intersects(Path<P> other) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+        boolean result = intersects(this, other);
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #intersects(Path)} but for paths of any point type and without recording a
+     * query in the metrics, for callers that record it themselves.
+     */
+    static boolean intersects(Path<?> a, Path<?> b) {
+        if (a.tolerance > 0 || b.tolerance > 0) {
+            // check the simplified paths first and only refine where they come close
+            return SimplifiedPath.intersects(a.getSimplified(), a.getHierarchy(),
+                    b.getSimplified(), b.getHierarchy());
+        }
+
+        // walk both hierarchies and only test lines whose bounding boxes overlap, or sweep over
+        // all lines if too many of them overlap
+        return BoundingVolumeHierarchy.intersects(a.getHierarchy(), b.getHierarchy());
+    }
+
+    /**
+     * Build everything that {@link #intersects(Path)} builds lazily, so that this path can be
+     * checked against others on several threads at once while it isn't changed.
+     *
+     * @param simplified {@code true} to build the simplified version as well, which is needed if
+     *                   this path or any path it is checked against has a tolerance.
+     */
+    void prepare(boolean simplified) {
+        getHierarchy();
+        if (simplified)
+            getSimplified().getHierarchy();
+    }
+
+    /**
+     * Get the closest approach of this {@code Path} and another one, i.e. the shortest distance
+     * between any of their lines.
+     *
+     * @param other The other path.
+     * @return Distance in units, 0 if the paths cross or touch, infinite if one of them has no
+     *         lines.
+     */
+    public double minDistance(Path<?> other) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        double result = BoundingVolumeHierarchy.minDistance(getHierarchy(), other.getHierarchy());
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Gets if this {@code Path} comes within the specified distance of another one. This is
+     * cheaper than comparing {@link #minDistance(Path)}, as the search stops at the first pair
+     * of lines that is close enough and skips all lines that are farther apart.
+     *
+     * @param other The other path.
+     * @param distance Distance in units.
+     * @return {@code true} if any lines of the paths are at most the distance apart,
+     *         {@code false} otherwise.
+     */
+    public boolean withinDistance(Path<?> other, double distance) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        boolean result = BoundingVolumeHierarchy.withinDistance(getHierarchy(),
+                other.getHierarchy(), distance);
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Find all pairs of intersecting lines of this {@code Path} and another one and pass them to
+     * the visitor one at a time. Lines of this path have the path index 0, lines of the other
+     * path have 1.
+     *
+     * @param other The other path.
+     * @param visitor Visitor that receives the intersections.
+     */
+    public void intersections(Path<?> other, IntersectionVisitor visitor) {
+        IntersectionSweep.intersections(Arrays.<Polyline>asList(this, other), visitor);
+    }
+
+    /**
+     * Gets if this {@code Path} intersects another one by testing every line of this path
+     * against every line of the other one.
+     *
+     * @param other The other path.
+     * @return {@code true} if the paths cross or touch, {@code false} otherwise.
+     */
+    boolean intersectsBruteForce(Path<?> other) {
+        double[] oxs = other.xs;
+        double[] oys = other.ys;
+        int otherLength = other.length();
+
+        SegmentKernel kernel = SegmentKernel.get();
+        if (kernel.isVectorized()) {
+            // each line of this path against the lines of the other path, a block at a time
+            for (int i = 0; i < points.size() - 1; i++)
+                for (int j = 0; j < otherLength - 1; j += SegmentKernel.MAX_LINES)
+                    if (kernel.intersections(xs[i], ys[i], xs[i+1], ys[i+1], oxs, oys,
+                            j, Math.min(j + SegmentKernel.MAX_LINES, otherLength - 1)) != 0)
+                        return true;
+
+            return false;
+        }
+
+        // for each line (consecutive pair of points) in this path:
+        // check intersection with all lines in the other path
+        for (int i = 0; i < points.size() - 1; i++)
+            for (int j = 0; j < otherLength - 1; j++)
+                if (Point.linesIntersect(xs[i], ys[i], xs[i+1], ys[i+1],
+                        oxs[j], oys[j], oxs[j+1], oys[j+1]))
+                    return true;
+
+        // no intersection found
+        return false;
+    }
+
+    /**
+     * Gets if two polylines intersect by testing every line of the first one against every line
+     * of the second one.
+     *
+     * @param a First polyline.
+     * @param b Second polyline.
+     * @return {@code true} if the polylines cross or touch, {@code false} otherwise.
+     */
+    static boolean intersectsBruteForce(Polyline a, Polyline b) {
+        if (a instanceof Path && b instanceof Path)
+            return ((Path<?>)a).intersectsBruteForce((Path<?>)b);
+
+        for (int i = 0; i < a.length() - 1; i++)
+            for (int j = 0; j < b.length() - 1; j++)
+                if (Point.linesIntersect(a.x(i), a.y(i), a.x(i+1), a.y(i+1),
+                        b.x(j), b.y(j), b.x(j+1), b.y(j+1)))
+                    return true;
+
+        return false;
+    }
+
+    /**
+     * Gets if this {@code Path} crosses or touches itself. Consecutive lines only share their
+     * common point, so they only count if they lie on top of each other. Repeated points, i.e.
+     * lines of zero length, are ignored.
+     *
+     * @return {@code true} if the path intersects itself, {@code false} otherwise.
+     */
+    public boolean selfIntersects() {
+        return SweepLine.selfIntersects(this);
+    }
+
+    /**
+     * Find all pairs of lines of this {@code Path} that intersect each other, as defined by
+     * {@link #selfIntersects()}, and pass them to the visitor one at a time. Both path indices
+     * passed to the visitor are 0.
+     *
+     * @param visitor Visitor that receives the intersections.
+     */
+    public void selfIntersections(IntersectionVisitor visitor) {
+        IntersectionSweep.selfIntersections(this, visitor);
+    }
+
+    /**
+     * Get if two different lines of a polyline form a self-intersection as defined by
+     * {@link #selfIntersects()}: they intersect and neither has zero length. Lines that are only
+     * separated by lines of zero length are consecutive and have to lie on top of each other.
+     *
+     * @param polyline Polyline that contains both lines.
+     * @param i Index of the first line.
+     * @param j Index of the second line.
+     * @return {@code true} if the lines form a self-intersection, {@code false} otherwise.
+     */
+    static boolean linesSelfIntersect(Polyline polyline, int i, int j) {
+        if (i > j) {
+            int swap = i;
+            i = j;
+            j = swap;
+        }
+
+        if (polyline instanceof Path && ((Path<?>) polyline).resolution > 0)
+            return gridLinesSelfIntersect((Path<?>) polyline, i, j);
+
+        double ax = polyline.x(i), ay = polyline.y(i);
+        double bx = polyline.x(i + 1), by = polyline.y(i + 1);
+        double cx = polyline.x(j), cy = polyline.y(j);
+        double dx = polyline.x(j + 1), dy = polyline.y(j + 1);
+
+        if ((ax == bx && ay == by) || (cx == dx && cy == dy) ||
+                !Point.linesIntersect(ax, ay, bx, by, cx, cy, dx, dy))
+            return false;
+
+        // consecutive if all points between the lines are at the same location
+        for (int k = i + 2; k <= j; k++)
+            if (polyline.x(k) != bx || polyline.y(k) != by)
+                return true;
+
+        // Consecutive lines (a - b) and (b - d) share b. They overlap if they are colinear and
+        // a and d lie on the same side of b.
+        return Point.orientation(ax, ay, bx, by, dx, dy) == Point.COLINEAR &&
+                (ax - bx) * (dx - bx) + (ay - by) * (dy - by) > 0;
+    }
+
+    /**
+     * Same as {@link #linesSelfIntersect(Polyline, int, int)} for the lines i < j of a path that
+     * is snapped to a grid, with the exact integer tests of {@code Point}.
+     */
+    private static boolean gridLinesSelfIntersect(Path<?> path, int i, int j) {
+        long ax = path.gridXs[i], ay = path.gridYs[i];
+        long bx = path.gridXs[i + 1], by = path.gridYs[i + 1];
+        long cx = path.gridXs[j], cy = path.gridYs[j];
+        long dx = path.gridXs[j + 1], dy = path.gridYs[j + 1];
+
+        if ((ax == bx && ay == by) || (cx == dx && cy == dy) ||
+                !Point.gridLinesIntersect(ax, ay, bx, by, cx, cy, dx, dy))
+            return false;
+
+        for (int k = i + 2; k <= j; k++)
+            if (path.gridXs[k] != bx || path.gridYs[k] != by)
+                return true;
+
+        return Point.gridOrientation(ax, ay, bx, by, dx, dy) == Point.COLINEAR &&
+                (ax - bx) * (dx - bx) + (ay - by) * (dy - by) > 0;
+    }
+
+    /**
+     * Get the number of self-intersections, i.e. pairs of lines as defined by
+     * {@link #linesSelfIntersect(Polyline, int, int)}, whose state can change when the point at
+     * the specified index moves. These are all pairs that contain one of the two lines at the
+     * point, and the pair of lines around them, which are consecutive if both lines at the point
+     * have zero length.
+     *
+     * Subtracting this number before the point moves and adding it afterwards keeps a count of
+     * all self-intersections of the path up to date.
+     *
+     * @param index Index of the point.
+     * @return Number of self-intersections at the point.
+     */
+    int selfIntersectionsAround(int index) {
+        int first = Math.max(index - 1, 0);
+        int last = Math.min(index, length() - 2);
+        if (first > last)
+            return 0;
+
+        BoundingVolumeHierarchy hierarchy = getHierarchy();
+        int count = 0;
+
+        for (int line = first; line <= last; line++)
+            count += hierarchy.countSelfIntersections(line);
+
+        // a pair of both lines has been counted twice
+        if (first < last && linesSelfIntersect(this, first, last))
+            count--;
+
+        // the closest lines of non-zero length before and after the lines at the point
+        int before = first - 1;
+        while (before >= 0 && xs[before] == xs[before + 1] && ys[before] == ys[before + 1])
+            before--;
+        int after = last + 1;
+        while (after < length() - 1 && xs[after] == xs[after + 1] && ys[after] == ys[after + 1])
+            after++;
+
+        if (before >= 0 && after < length() - 1 && linesSelfIntersect(this, before, after))
+            count++;
+
+        return count;
+    }
+
+    /**
+     * Store the coordinates of the point at the specified index, snapped to the grid if there is
+     * one.
+     */
+    private void place(P point, int index, double x, double y) {
+        if (resolution > 0) {
+            int gridX = snap(x);
+            int gridY = snap(y);
+            gridXs[index] = gridX;
+            gridYs[index] = gridY;
+            x = gridX * resolution;
+            y = gridY * resolution;
+        }
+
+        point.moveTo(x, y);
+        xs[index] = x;
+        ys[index] = y;
+    }
+
+    private int snap(double coordinate) {
+        double grid = Math.rint(coordinate / resolution);
+        if (!(Math.abs(grid) <= Point.MAX_GRID))
+            throw new IllegalArgumentException("coordinate " + coordinate + " is not on the grid");
+
+        return (int) grid;
+    }
+
+    /**
+     * Snap all points to an integer grid, now and whenever they are added or moved. The path's
+     * coordinates then are multiples of the resolution, and {@link #intersects(Path)} checks two
+     * paths on the same grid with exact integer arithmetic, without any floating point, epsilon
+     * or NaN.
+     *
+     * @param resolution Distance of grid lines in units, 0 to stop snapping.
+     * @throws IllegalArgumentException If a coordinate is more than {@link Point#MAX_GRID} grid
+     *                                  lines away from 0, or isn't a number.
+     */
+    public void setResolution(double resolution) {
+        double previous = this.resolution;
+        this.resolution = resolution > 0 ? resolution : 0;
+
+        if (this.resolution > 0) {
+            // check all points before any of them is moved
+            try {
+                for (int i = 0; i < length(); i++) {
+                    snap(xs[i]);
+                    snap(ys[i]);
+                }
+            } catch (IllegalArgumentException e) {
+                this.resolution = previous;
+                throw e;
+            }
+
+            gridXs = new int[xs.length];
+            gridYs = new int[ys.length];
+            for (int i = 0; i < length(); i++)
+                place(points.get(i), i, xs[i], ys[i]);
+        } else {
+            gridXs = null;
+            gridYs = null;
+        }
+
+        hierarchy = null;
+        simplified = null;
+        version++;
+    }
+
+    /**
+     * Get the number of changes to the path's points so far. Adding, moving and removing points
+     * or snapping them to a grid increases it, so a result computed for one version of the path
+     * stays valid as long as the version is the same.
+     *
+     * @return Version of the path.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the distance of the grid lines that the points are snapped to.
+     *
+     * @return Distance in units, 0 if the points aren't snapped.
+     */
+    public double getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Get the x coordinate of the point at the specified index in grid lines. Only valid while
+     * the path is snapped to a grid.
+     *
+     * @param index Point's index.
+     * @return X coordinate in multiples of the resolution.
+     */
+    public int gridX(int index) {
+        return gridXs[index];
+    }
+
+    /**
+     * Get the y coordinate of the point at the specified index in grid lines. Only valid while
+     * the path is snapped to a grid.
+     *
+     * @param index Point's index.
+     * @return Y coordinate in multiples of the resolution.
+     */
+    public int gridY(int index) {
+        return gridYs[index];
+    }
+
+    /**
+     * Get if both polylines are paths that are snapped to the same grid, so that their lines can
+     * be checked with {@link Point#gridLinesIntersect}.
+     */
+    static boolean onSameGrid(Polyline a, Polyline b) {
+        return a instanceof Path && b instanceof Path && ((Path<?>) a).resolution > 0 &&
+                ((Path<?>) a).resolution == ((Path<?>) b).resolution;
+    }
+
+    /**
+     * Get a polyline with the grid coordinates of the specified path's points. Grid coordinates
+     * are integers, which doubles hold exactly, and the double predicates of {@code Point} are
+     * exact for the given coordinates. Algorithms that only work on doubles therefore decide
+     * the view exactly like {@link Point#gridLinesIntersect} decides the grid lines.
+     *
+     * @param path Path that is snapped to a grid.
+     * @return View of the path in multiples of its resolution.
+     */
+    static Polyline gridView(final Path<?> path) {
+        return new Polyline() {
+            @Override
+            public int length() {
+                return path.length();
+            }
+
+            @Override
+            public double x(int index) {
+                return path.gridXs[index];
+            }
+
+            @Override
+            public double y(int index) {
+                return path.gridYs[index];
+            }
+        };
+    }
+
+    /**
+     * Get the grid views of polylines, see {@link #gridView(Path)}, if they are all paths that are
+     * snapped to the same grid. The sweeps check the views instead of the polylines, so that
+     * they decide like the grid tests of the hierarchies.
+     *
+     * @param polylines Polylines to check.
+     * @return Views of the polylines in the same order, {@code null} if they aren't on a grid.
+     */
+    static List<Polyline> gridViews(List<? extends Polyline> polylines) {
+        if (polylines.isEmpty() || !onSameGrid(polylines.get(0), polylines.get(0)))
+            return null;
+
+        List<Polyline> views = new ArrayList<>(polylines.size());
+        for (Polyline polyline : polylines) {
+            if (!onSameGrid(polylines.get(0), polyline))
+                return null;
+            views.add(gridView((Path<?>) polyline));
+        }
+
+        return views;
+    }
+
+    /**
+     * Set the tolerance of the simplified version that {@link #intersects(Path)} checks first.
+     * Simplifying pays off for long, densely sampled paths that are checked repeatedly without
+     * being changed in between, as every change drops the simplified version.
+     *
+     * @param tolerance Largest distance in units that a point may be moved by the
+     *                  simplification. 0, the default, checks the path at full resolution only.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        simplified = null;
+    }
+
+    /**
+     * Get the tolerance of the simplified version.
+     *
+     * @return Tolerance in units, 0 if the path is checked at full resolution only.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Get the simplified version of this path for the current tolerance.
+     *
+     * @return The simplified path.
+     */
+    public SimplifiedPath getSimplified() {
+        if (simplified == null)
+            simplified = new SimplifiedPath(this, tolerance);
+
+        return simplified;
+    }
+
+    /**
+     * Get the hierarchy of bounding boxes over the lines of this path. Its root box is the
+     * bounding box of the whole path.
+     *
+     * @return The path's bounding volume hierarchy.
+     */
+    public BoundingVolumeHierarchy getHierarchy() {
+        if (hierarchy == null)
+            hierarchy = new BoundingVolumeHierarchy(this);
+
+        return hierarchy;
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code P}.
+     *
+     * @return An Iterator.
+     */
+    @Override
+    public Iterator<P> iterator() {
+        return new Iterator<P>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return points.size() > index;
+            }
+
+            @Override
+            public P next() {
+                return points.get(index++);
+            }
+        };
+    }
+
+    /**
+     * Get a string representation that is useful for debugging. The format of the string is:
+     *
+     * {@code [ ( 1.23 | 45.67 ), ( 41.9 | 5.01 ), ... ]}
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        // Use StringBuilder instead of String for performance reasons.
+        // A synchronized StringBuffer is not necessary here.
+        StringBuilder output = new StringBuilder("[ ");
+
+        // Off-by-one-Problem: No comma shall be set after last point.
+        // Therefore no extended for loop is used.
+        for (int i = 0; i < points.size() - 1; i++)
+            output.append(points.get(i).toString()).append(", ");
+
+        output.append(points.get(points.size() - 1)).append(" ]");
+
+        return output.toString();
+    }
+}
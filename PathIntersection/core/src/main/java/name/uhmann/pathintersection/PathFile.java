@@ -0,0 +1,341 @@
+package name.uhmann.pathintersection;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@code PathFile} gives access to the paths of a binary path file, as written by
+ * {@link PathFileWriter}, without reading them into the heap. The file is mapped into memory and
+ * paths are views that read their coordinates straight from the mapping, so opening a file takes
+ * the same time regardless of its size and only the parts that are queried are ever loaded.
+ *
+ * The file consists of a header, the packed coordinates of all paths and a table with an entry
+ * per path. All numbers are little endian.
+ *
+ * <pre>
+ *     header   int magic 0x50544846, int version, long path count, long table offset, long unused
+ *     paths    double x, double y for every point of every path
+ *     table    long offset, long length, double minX, minY, maxX, maxY for every path
+ * </pre>
+ *
+ * The bounding boxes in the table let queries skip paths without touching their coordinates.
+ * Since a single mapping can't exceed 2 GB, the file is mapped in chunks of 1 GB. All numbers
+ * are 8 byte aligned, so none of them crosses from one chunk into the next.
+ */
+public class PathFile implements Closeable {
+
+    static final int MAGIC = 0x50544846;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 48;
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] chunks;
+    private final int size;
+    private final long tableOffset;
+
+    private PathFile(RandomAccessFile file) throws IOException {
+        this.file = file;
+
+        FileChannel channel = file.getChannel();
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE)
+            throw new IOException("not a path file");
+
+        chunks = new MappedByteBuffer[(int)((fileSize + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long position = (long)i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    min(CHUNK_MASK + 1, fileSize - position));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (chunks[0].getInt(0) != MAGIC)
+            throw new IOException("not a path file");
+        if (chunks[0].getInt(4) != VERSION)
+            throw new IOException("unsupported path file version " + chunks[0].getInt(4));
+
+        long count = chunks[0].getLong(8);
+        tableOffset = chunks[0].getLong(16);
+        if (count < 0 || count > Integer.MAX_VALUE || tableOffset < HEADER_SIZE ||
+                tableOffset + count * ENTRY_SIZE > fileSize)
+            throw new IOException("corrupt path file");
+
+        size = (int)count;
+    }
+
+    /**
+     * Open a path file for reading. The mapping stays valid until the {@code PathFile} is
+     * closed.
+     *
+     * @param file File to open.
+     * @return The opened path file.
+     * @throws IOException If the file can't be read or isn't a path file.
+     */
+    public static PathFile open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            return new PathFile(randomAccessFile);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of paths in the file.
+     *
+     * @return Number of paths.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a view of a path that reads its coordinates straight from the mapping.
+     *
+     * @param id Index of the path in the file.
+     * @return The path.
+     */
+    public Polyline get(int id) {
+        long entry = entry(id);
+        return new MappedPath(getLong(entry), (int)getLong(entry + 8));
+    }
+
+    /**
+     * Get the smallest x coordinate of a path, i.e. of its bounding box, from the table.
+     *
+     * @param id Index of the path in the file.
+     * @return Smallest x coordinate in units.
+     */
+    public double getMinX(int id) {
+        return getDouble(entry(id) + 16);
+    }
+
+    /**
+     * Get the smallest y coordinate of a path, i.e. of its bounding box, from the table.
+     *
+     * @param id Index of the path in the file.
+     * @return Smallest y coordinate in units.
+     */
+    public double getMinY(int id) {
+        return getDouble(entry(id) + 24);
+    }
+
+    /**
+     * Get the largest x coordinate of a path, i.e. of its bounding box, from the table.
+     *
+     * @param id Index of the path in the file.
+     * @return Largest x coordinate in units.
+     */
+    public double getMaxX(int id) {
+        return getDouble(entry(id) + 32);
+    }
+
+    /**
+     * Get the largest y coordinate of a path, i.e. of its bounding box, from the table.
+     *
+     * @param id Index of the path in the file.
+     * @return Largest y coordinate in units.
+     */
+    public double getMaxY(int id) {
+        return getDouble(entry(id) + 40);
+    }
+
+    /**
+     * Get if two paths of the file cross or touch.
+     *
+     * @param a Index of the first path.
+     * @param b Index of the second path.
+     * @return {@code true} if the paths intersect, {@code false} otherwise.
+     */
+    public boolean intersects(int a, int b) {
+        if (getMinX(a) > getMaxX(b) || getMinX(b) > getMaxX(a) ||
+                getMinY(a) > getMaxY(b) || getMinY(b) > getMaxY(a))
+            return false;
+
+        return intersects(new BoundingVolumeHierarchy(get(a)), b);
+    }
+
+    /**
+     * Get the indices of all paths of the file that the probe crosses or touches. The paths are
+     * found by a scan over the table, and only the paths whose boxes overlap the probe's box are
+     * read.
+     *
+     * @param probe Path to check.
+     * @return Indices of the intersecting paths in ascending order.
+     */
+    public int[] intersectingPaths(Polyline probe) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        BoundingVolumeHierarchy hierarchy = probe instanceof Path
+                ? ((Path<?>) probe).getHierarchy()
+                : new BoundingVolumeHierarchy(probe);
+
+        int[] hits = new int[0];
+        int count = 0;
+
+        if (hierarchy.getLineCount() > 0)
+            for (int id = 0; id < size; id++) {
+                if (getMinX(id) > hierarchy.getMaxX() || hierarchy.getMinX() > getMaxX(id) ||
+                        getMinY(id) > hierarchy.getMaxY() || hierarchy.getMinY() > getMaxY(id))
+                    continue;
+
+                if (intersects(hierarchy, id)) {
+                    if (count == hits.length)
+                        hits = Arrays.copyOf(hits, max(2 * count, 4));
+                    hits[count++] = id;
+                }
+            }
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return Arrays.copyOf(hits, count);
+    }
+
+    /**
+     * Get if any line of the path at the specified index crosses or touches a line of the
+     * hierarchy's polyline, by looking up each line of the path in the hierarchy. This doesn't
+     * need a hierarchy of the path itself.
+     */
+    private boolean intersects(BoundingVolumeHierarchy hierarchy, int id) {
+        Polyline path = get(id);
+
+        for (int i = 0; i < path.length() - 1; i++) {
+            double px = path.x(i), py = path.y(i);
+            double qx = path.x(i + 1), qy = path.y(i + 1);
+
+            // lines outside the hierarchy's box can't intersect
+            if (min(px, qx) > hierarchy.getMaxX() || hierarchy.getMinX() > max(px, qx) ||
+                    min(py, qy) > hierarchy.getMaxY() || hierarchy.getMinY() > max(py, qy))
+                continue;
+
+            if (hierarchy.countIntersections(px, py, qx, qy) > 0)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Find the point of any path that is closest to the specified location and less than the
+     * specified radius away from it.
+     *
+     * @param x X coordinate of the location in units.
+     * @param y Y coordinate of the location in units.
+     * @param radius Maximum distance in units.
+     * @return Path index and point index packed like {@link PointGrid#nearest}, -1 if no point
+     *         is close enough.
+     */
+    public long nearest(double x, double y, double radius) {
+        long nearest = -1;
+        double minDistanceSquared = radius * radius;
+
+        for (int id = 0; id < size; id++) {
+            if (getMinX(id) > x + radius || x - radius > getMaxX(id) ||
+                    getMinY(id) > y + radius || y - radius > getMaxY(id))
+                continue;
+
+            Polyline path = get(id);
+            for (int index = 0; index < path.length(); index++) {
+                double deltaX = path.x(index) - x;
+                double deltaY = path.y(index) - y;
+                double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+
+                if (IntersectionMetrics.ENABLED)
+                    IntersectionMetrics.get().hitTestCandidate();
+
+                if (distanceSquared < minDistanceSquared) {
+                    nearest = ((long)id << 32) | index;
+                    minDistanceSquared = distanceSquared;
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    private long entry(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("path " + id + " of " + size);
+
+        return tableOffset + (long)id * ENTRY_SIZE;
+    }
+
+    private long getLong(long position) {
+        return chunks[(int)(position >>> CHUNK_SHIFT)].getLong((int)(position & CHUNK_MASK));
+    }
+
+    private double getDouble(long position) {
+        return chunks[(int)(position >>> CHUNK_SHIFT)].getDouble((int)(position & CHUNK_MASK));
+    }
+
+    /**
+     * Close the file. Paths that have been returned by {@link #get(int)} must not be used
+     * afterwards.
+     *
+     * @throws IOException If the file can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * A path of the file, whose coordinates are read from the mapping on every access.
+     */
+    private class MappedPath implements Polyline {
+        private final long offset;
+        private final int length;
+
+        // the chunk that holds the whole path and the path's position in it, if there is one
+        private final MappedByteBuffer chunk;
+        private final int base;
+
+        MappedPath(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+
+            long end = offset + 16L * length;
+            if (length > 0 && (offset >>> CHUNK_SHIFT) == ((end - 1) >>> CHUNK_SHIFT)) {
+                chunk = chunks[(int)(offset >>> CHUNK_SHIFT)];
+                base = (int)(offset & CHUNK_MASK);
+            } else {
+                chunk = null;
+                base = 0;
+            }
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public double x(int index) {
+            return chunk != null
+                    ? chunk.getDouble(base + 16 * index)
+                    : getDouble(offset + 16L * index);
+        }
+
+        @Override
+        public double y(int index) {
+            return chunk != null
+                    ? chunk.getDouble(base + 16 * index + 8)
+                    : getDouble(offset + 16L * index + 8);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package name.uhmann.pathintersection;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@code PathFileWriter} writes paths one at a time to a binary path file, in the format that
+ * {@link PathFile} describes. Coordinates are written as they come, only the table entries are
+ * kept in memory until the file is closed, 48 bytes per path.
+ */
+public class PathFileWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer =
+            ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private ByteBuffer table = ByteBuffer.allocate(64 * PathFile.ENTRY_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private long count;
+
+    // position in the file at which the buffer starts
+    private long position = PathFile.HEADER_SIZE;
+
+    /**
+     * Create a new path file, or replace an existing one.
+     *
+     * @param file File to write to.
+     * @throws IOException If the file can't be created.
+     */
+    public PathFileWriter(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        channel = this.file.getChannel();
+    }
+
+    /**
+     * Append a path to the file.
+     *
+     * @param path Path to write.
+     * @return Index of the path in the file.
+     * @throws IOException If the path can't be written.
+     */
+    public int write(Polyline path) throws IOException {
+        if (count == Integer.MAX_VALUE)
+            throw new IOException("too many paths");
+
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        long offset = position + buffer.position();
+
+        for (int i = 0; i < path.length(); i++) {
+            if (buffer.remaining() < 16)
+                flush();
+
+            double x = path.x(i), y = path.y(i);
+            buffer.putDouble(x);
+            buffer.putDouble(y);
+
+            x0 = min(x0, x);
+            y0 = min(y0, y);
+            x1 = max(x1, x);
+            y1 = max(y1, y);
+        }
+
+        if (table.remaining() < PathFile.ENTRY_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(2 * table.capacity())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            table.flip();
+            grown.put(table);
+            table = grown;
+        }
+
+        table.putLong(offset);
+        table.putLong(path.length());
+        table.putDouble(x0);
+        table.putDouble(y0);
+        table.putDouble(x1);
+        table.putDouble(y1);
+
+        return (int)count++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+        buffer.clear();
+    }
+
+    /**
+     * Write the table and the header and close the file. The file isn't a valid path file
+     * before it has been closed.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            long tableOffset = position;
+            table.flip();
+            while (table.hasRemaining())
+                position += channel.write(table, position);
+
+            ByteBuffer header = ByteBuffer.allocate(PathFile.HEADER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(PathFile.MAGIC);
+            header.putInt(PathFile.VERSION);
+            header.putLong(count);
+            header.putLong(tableOffset);
+            header.putLong(0);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            file.close();
+        }
+    }
+}
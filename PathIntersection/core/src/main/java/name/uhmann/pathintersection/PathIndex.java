@@ -0,0 +1,403 @@
+package name.uhmann.pathintersection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@code PathIndex} stores a large number of {@code Path}s and answers which of them a probe
+ * path crosses or touches, without checking every stored path.
+ *
+ * The bounding boxes of the stored paths are organized in a binary tree of boxes, the same way
+ * that a {@code BoundingVolumeHierarchy} organizes the lines of a single path. Since stored paths
+ * are not related by their order, the tree is built by splitting the paths at the median of their
+ * centers along the longer axis instead of by their index. A probe walks this tree once with its
+ * bounding box, and only the paths whose boxes overlap it are checked line by line, by walking
+ * both paths' own hierarchies.
+ *
+ * The same tree also finds the stored paths that come within a distance of each other, with the
+ * boxes expanded by that distance.
+ *
+ * Paths are referred to by the id that {@link #add(Path)} returns. The tree is built lazily on the
+ * first query after paths have been added or removed. Stored paths may be changed, but
+ * {@link #update(int)} has to be called afterwards. Queries build trees lazily, so they must not
+ * run concurrently.
+ */
+public class PathIndex {
+
+    // maximum number of paths in a leaf
+    private static final int LEAF_SIZE = 4;
+
+    // stored paths by id, null for removed ones
+    private final List<Path<?>> paths = new ArrayList<>();
+    private int size;
+
+    // ids of the paths with at least one line, grouped by leaf
+    private int[] ids = new int[0];
+    // leaf that contains each id, -1 if the path isn't in the tree
+    private int[] leafOf = new int[0];
+    private boolean valid;
+
+    // node boxes and the range of ids [start, end) that each node covers
+    private double[] minX, minY, maxX, maxY;
+    private int[] start, end;
+
+    /**
+     * Add a path to the index.
+     *
+     * @param path Path to add.
+     * @return Id of the path within the index.
+     */
+    public int add(Path<?> path) {
+        paths.add(path);
+        size++;
+        valid = false;
+
+        return paths.size() - 1;
+    }
+
+    /**
+     * Remove a path from the index. Its id isn't used again.
+     *
+     * @param id Id of the path.
+     */
+    public void remove(int id) {
+        if (paths.get(id) != null) {
+            paths.set(id, null);
+            size--;
+            valid = false;
+        }
+    }
+
+    /**
+     * Get a stored path.
+     *
+     * @param id Id of the path.
+     * @return The path, {@code null} if it has been removed.
+     */
+    public Path<?> get(int id) {
+        return paths.get(id);
+    }
+
+    /**
+     * Get the number of stored paths.
+     *
+     * @return Number of paths.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Update the index after points of a stored path have been moved, added or removed. A moved
+     * path only refits the boxes above its leaf, other changes rebuild the tree on the next query.
+     *
+     * @param id Id of the changed path.
+     */
+    public void update(int id) {
+        if (!valid)
+            return;
+
+        int node = leafOf[id];
+        if (node < 0 || paths.get(id).getHierarchy().getLineCount() == 0) {
+            valid = false;
+            return;
+        }
+
+        fitLeaf(node);
+        while (node > 0) {
+            node = (node - 1) / 2;
+            fitInner(node);
+        }
+    }
+
+    /**
+     * Get if the probe crosses or touches any of the stored paths.
+     *
+     * @param probe Path to check.
+     * @return {@code true} if any stored path intersects the probe, {@code false} otherwise.
+     */
+    public boolean intersectsAny(Polyline probe) {
+        return query(probe, true).length > 0;
+    }
+
+    /**
+     * Get the ids of all stored paths that the probe crosses or touches.
+     *
+     * @param probe Path to check.
+     * @return Ids of the intersecting paths in ascending order.
+     */
+    public int[] intersectingPaths(Polyline probe) {
+        return query(probe, false);
+    }
+
+    /**
+     * Get if a stored path comes within the specified distance of any other stored path, as
+     * defined by {@link Path#withinDistance(Path, double)}. Only the paths whose boxes come
+     * within the distance of the path's box are checked line by line.
+     *
+     * @param id Id of the stored path.
+     * @param distance Distance in units.
+     * @return {@code true} if any other stored path is at most the distance away,
+     *         {@code false} otherwise or if the path has been removed.
+     */
+    public boolean withinDistanceOfAny(int id, double distance) {
+        long startTime = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        Path<?> path = paths.get(id);
+        boolean result = path != null && distance >= 0 &&
+                search(path.getHierarchy(), id, 0, distance, true).length > 0;
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - startTime);
+
+        return result;
+    }
+
+    /**
+     * Get if any two stored paths come within the specified distance of each other. Each path is
+     * only checked against the paths with greater ids, so every pair is checked once.
+     *
+     * @param distance Distance in units.
+     * @return {@code true} if any two stored paths are at most the distance apart,
+     *         {@code false} otherwise.
+     */
+    public boolean anyWithinDistance(double distance) {
+        long startTime = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        boolean result = false;
+        if (distance >= 0)
+            for (int id = 0; id < paths.size() && !result; id++) {
+                Path<?> path = paths.get(id);
+                result = path != null &&
+                        search(path.getHierarchy(), id, id + 1, distance, true).length > 0;
+            }
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - startTime);
+
+        return result;
+    }
+
+    private int[] query(Polyline probe, boolean firstOnly) {
+        long startTime = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        // the probe's hierarchy is built once and shared by all stored paths it is checked with
+        BoundingVolumeHierarchy hierarchy = probe instanceof Path
+                ? ((Path<?>) probe).getHierarchy()
+                : new BoundingVolumeHierarchy(probe);
+
+        int[] hits = search(hierarchy, -1, 0, -1, firstOnly);
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - startTime);
+
+        return hits;
+    }
+
+    /**
+     * Walk the tree with the box of the hierarchy and check the stored paths whose boxes
+     * overlap it.
+     *
+     * @param self Id of a stored path to skip, -1 for none.
+     * @param lowest Lowest id of the stored paths to check, 0 for all.
+     * @param distance Distance that a stored path may be away, -1 to find intersecting ones.
+     * @return Ids of the found paths in ascending order.
+     */
+    private int[] search(BoundingVolumeHierarchy hierarchy, int self, int lowest,
+                         double distance, boolean firstOnly) {
+        int[] hits = new int[0];
+        int hitCount = 0;
+
+        if (!valid)
+            build();
+
+        if (hierarchy.getLineCount() > 0 && ids.length > 0) {
+            double margin = max(distance, 0);
+            double x0 = hierarchy.getMinX() - margin, y0 = hierarchy.getMinY() - margin;
+            double x1 = hierarchy.getMaxX() + margin, y1 = hierarchy.getMaxY() + margin;
+
+            int[] stack = new int[32];
+            int stackSize = 0;
+            stack[stackSize++] = 0;
+
+            search:
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+
+                if (minX[node] > x1 || x0 > maxX[node] || minY[node] > y1 || y0 > maxY[node])
+                    continue;
+
+                if (!isLeaf(node)) {
+                    // the tree is balanced, so the stack never grows beyond twice its depth
+                    stack[stackSize++] = 2 * node + 1;
+                    stack[stackSize++] = 2 * node + 2;
+                    continue;
+                }
+
+                for (int i = start[node]; i < end[node]; i++) {
+                    if (ids[i] == self || ids[i] < lowest)
+                        continue;
+
+                    BoundingVolumeHierarchy other = paths.get(ids[i]).getHierarchy();
+
+                    if (other.getMinX() > x1 || x0 > other.getMaxX() ||
+                            other.getMinY() > y1 || y0 > other.getMaxY())
+                        continue;
+
+                    if (distance < 0
+                            ? BoundingVolumeHierarchy.intersects(hierarchy, other)
+                            : BoundingVolumeHierarchy.withinDistance(hierarchy, other, distance)) {
+                        if (hitCount == hits.length)
+                            hits = Arrays.copyOf(hits, max(2 * hitCount, 4));
+                        hits[hitCount++] = ids[i];
+
+                        if (firstOnly)
+                            break search;
+                    }
+                }
+            }
+        }
+
+        hits = Arrays.copyOf(hits, hitCount);
+        Arrays.sort(hits);
+
+        return hits;
+    }
+
+    private void build() {
+        leafOf = new int[paths.size()];
+        Arrays.fill(leafOf, -1);
+
+        // paths without lines can't intersect anything
+        int count = 0;
+        ids = new int[size];
+        for (int id = 0; id < paths.size(); id++)
+            if (paths.get(id) != null && paths.get(id).getHierarchy().getLineCount() > 0)
+                ids[count++] = id;
+        ids = Arrays.copyOf(ids, count);
+
+        // the tree is complete down to the level at which all ranges fit into a leaf
+        int levels = 1;
+        while ((count + (1 << (levels - 1)) - 1) >> (levels - 1) > LEAF_SIZE)
+            levels++;
+
+        int nodeCount = (1 << levels) - 1;
+        minX = new double[nodeCount];
+        minY = new double[nodeCount];
+        maxX = new double[nodeCount];
+        maxY = new double[nodeCount];
+        start = new int[nodeCount];
+        end = new int[nodeCount];
+
+        build(0, 0, count);
+        valid = true;
+    }
+
+    private void build(int node, int from, int to) {
+        start[node] = from;
+        end[node] = to;
+
+        if (isLeaf(node)) {
+            for (int i = from; i < to; i++)
+                leafOf[ids[i]] = node;
+            fitLeaf(node);
+            return;
+        }
+
+        // split the paths at the median of their centers along the longer axis
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double x = center(ids[i], true);
+            double y = center(ids[i], false);
+            x0 = min(x0, x);
+            y0 = min(y0, y);
+            x1 = max(x1, x);
+            y1 = max(y1, y);
+        }
+
+        int mid = (from + to) >>> 1;
+        select(from, to, mid, x1 - x0 >= y1 - y0);
+
+        build(2 * node + 1, from, mid);
+        build(2 * node + 2, mid, to);
+        fitInner(node);
+    }
+
+    /**
+     * Reorder the ids [from, to) so that the id at index k has the k-th smallest center along
+     * the specified axis, the ones before it smaller or equal centers and the ones after it
+     * greater or equal centers.
+     */
+    private void select(int from, int to, int k, boolean alongX) {
+        int left = from, right = to - 1;
+
+        while (left < right) {
+            double pivot = center(ids[(left + right) >>> 1], alongX);
+            int i = left, j = right;
+
+            while (i <= j) {
+                while (center(ids[i], alongX) < pivot)
+                    i++;
+                while (center(ids[j], alongX) > pivot)
+                    j--;
+                if (i <= j) {
+                    int swap = ids[i];
+                    ids[i++] = ids[j];
+                    ids[j--] = swap;
+                }
+            }
+
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private double center(int id, boolean alongX) {
+        BoundingVolumeHierarchy hierarchy = paths.get(id).getHierarchy();
+
+        return alongX
+                ? (hierarchy.getMinX() + hierarchy.getMaxX()) / 2
+                : (hierarchy.getMinY() + hierarchy.getMaxY()) / 2;
+    }
+
+    private boolean isLeaf(int node) {
+        return end[node] - start[node] <= LEAF_SIZE;
+    }
+
+    private void fitLeaf(int node) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+
+        for (int i = start[node]; i < end[node]; i++) {
+            BoundingVolumeHierarchy hierarchy = paths.get(ids[i]).getHierarchy();
+            x0 = min(x0, hierarchy.getMinX());
+            y0 = min(y0, hierarchy.getMinY());
+            x1 = max(x1, hierarchy.getMaxX());
+            y1 = max(y1, hierarchy.getMaxY());
+        }
+
+        minX[node] = x0;
+        minY[node] = y0;
+        maxX[node] = x1;
+        maxY[node] = y1;
+    }
+
+    private void fitInner(int node) {
+        int left = 2 * node + 1;
+        int right = 2 * node + 2;
+
+        minX[node] = min(minX[left], minX[right]);
+        minY[node] = min(minY[left], minY[right]);
+        maxX[node] = max(maxX[left], maxX[right]);
+        maxY[node] = max(maxY[left], maxY[right]);
+    }
+}
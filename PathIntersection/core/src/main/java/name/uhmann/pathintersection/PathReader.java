@@ -0,0 +1,100 @@
+package name.uhmann.pathintersection;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@code PathReader} reads paths from a text stream one at a time, so that streams of any size
+ * can be processed in constant memory.
+ *
+ * Every line holds one path as a list of coordinates x1 y1 x2 y2 ..., separated by whitespace or
+ * commas. Empty lines and lines that start with '#' are skipped.
+ */
+public class PathReader implements Closeable {
+
+    private final BufferedReader reader;
+    private int lineNumber;
+
+    /**
+     * Create a {@code PathReader} that reads from the specified stream.
+     *
+     * @param reader Stream to read from. It is closed together with the {@code PathReader}.
+     */
+    public PathReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader
+                ? (BufferedReader) reader
+                : new BufferedReader(reader);
+    }
+
+    /**
+     * Read the next path.
+     *
+     * @return The path, {@code null} at the end of the stream.
+     * @throws IOException If the stream can't be read or a line is malformed.
+     */
+    public Path<Point> read() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null)
+                return null;
+            lineNumber++;
+            line = line.trim();
+        } while (line.isEmpty() || line.startsWith("#"));
+
+        Path<Point> path = new Path<>();
+        double x = 0;
+        boolean haveX = false;
+
+        int i = 0;
+        while (i < line.length()) {
+            // skip separators, then take everything up to the next one as a number
+            while (i < line.length() && isSeparator(line.charAt(i)))
+                i++;
+            int start = i;
+            while (i < line.length() && !isSeparator(line.charAt(i)))
+                i++;
+            if (start == i)
+                break;
+
+            double value;
+            try {
+                value = Double.parseDouble(line.substring(start, i));
+            } catch (NumberFormatException e) {
+                throw new IOException("line " + lineNumber + ": not a number: " +
+                        line.substring(start, i));
+            }
+
+            if (haveX)
+                path.add(new Point(x, value));
+            else
+                x = value;
+            haveX = !haveX;
+        }
+
+        if (haveX)
+            throw new IOException("line " + lineNumber + ": odd number of coordinates");
+
+        return path;
+    }
+
+    /**
+     * Get the number of the line that the last path was read from, starting at 1.
+     *
+     * @return Line number.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ',' || Character.isWhitespace(c);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
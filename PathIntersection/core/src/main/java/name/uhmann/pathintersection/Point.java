@@ -0,0 +1,323 @@
+package name.uhmann.pathintersection;
+
+/**
+ * Created by Tobias on 05.02.2017.
+ */
+
+import java.math.BigDecimal;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * This class provides an implementation for points in the 2-dimensional (x,y) space.
+ *
+ * In addition, it provides the two methods {@code withinRectangle} and {@code orientation}
+ * as helper methods for determining if two path segments (i.e. lines) intersect.
+ */
+public class Point {
+
+    private double x;   // Our 2D space is continuous. It is later transformed to the discrete
+    private double y;   // pixel grid when being painted.
+
+    // The coordinates are read-only from outside the package. A path keeps a packed copy of its
+    // points' coordinates, its bounding volume hierarchy, grid coordinates and version, so a
+    // point that belongs to a path may only be moved via Path.set(), which moves it with
+    // moveTo() and updates everything else.
+
+    public Point(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Get the point's x coordinate.
+     *
+     * @return X coordinate in units.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Get the point's y coordinate.
+     *
+     * @return Y coordinate in units.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Move the point. Only called by {@link Path#set(int, double, double)} for its points.
+     *
+     * @param x New x coordinate in units.
+     * @param y New y coordinate in units.
+     */
+    void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Get if the lines (p1 - p2) and (q1 - q2) intersect.
+     *
+     * A visualization of the algorithm can be found here:
+     * http://www.geeksforgeeks.org/check-if-two-given-line-segments-intersect/
+     *
+     * @param p1 first endpoint of first line (p1 - p2)
+     * @param p2 second endpoint of first line (p1 - p2)
+     * @param q1 first endpoint of second line (q1 - q2)
+     * @param q2 second endpoint of second line (q1 - q2)
+     * @return true if the lines intersect, false otherwise
+     */
+    public static boolean linesIntersect(Point p1, Point p2, Point q1, Point q2) {
+        return linesIntersect(p1.x, p1.y, p2.x, p2.y, q1.x, q1.y, q2.x, q2.y);
+    }
+
+    /**
+     * Get if the lines (p1 - p2) and (q1 - q2) intersect. This variant takes the coordinates
+     * directly so that packed coordinates can be checked without creating {@code Point}s.
+     *
+     * @return true if the lines intersect, false otherwise
+     * @see #linesIntersect(Point, Point, Point, Point)
+     */
+    public static boolean linesIntersect(double p1x, double p1y, double p2x, double p2y,
+                                         double q1x, double q1y, double q2x, double q2y) {
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().segmentPairTested();
+
+        // Lines whose bounding boxes don't overlap can't intersect. This comparison is a lot
+        // cheaper than the four orientations below and decides most pairs in practice.
+        if (max(p1x, p2x) < min(q1x, q2x) || max(q1x, q2x) < min(p1x, p2x) ||
+                max(p1y, p2y) < min(q1y, q2y) || max(q1y, q2y) < min(p1y, p2y)) {
+            if (IntersectionMetrics.ENABLED)
+                IntersectionMetrics.get().boundingBoxRejected();
+
+            return false;
+        }
+
+        int orientationPPQ1 = orientation(p1x, p1y, p2x, p2y, q1x, q1y);
+        int orientationPPQ2 = orientation(p1x, p1y, p2x, p2y, q2x, q2y);
+        int orientationQQP1 = orientation(q1x, q1y, q2x, q2y, p1x, p1y);
+        int orientationQQP2 = orientation(q1x, q1y, q2x, q2y, p2x, p2y);
+
+        // General case: The lines are not aligned
+        // Endpoints of (q1 - q2) on opposite sides of (p1 - p2) and vice versa?
+        //
+        // Only checking if q1 and q2 are on opposite sides of (p1 - p2) is not sufficient!
+        // (q1 - q2) could still be beyond (p1 - p2)
+        if (orientationPPQ1 != orientationPPQ2 && orientationQQP1 != orientationQQP2)
+            return true;
+
+        // Special case: The lines are aligned
+        // Check if (q1 - q2) is beyond (p1 - p2) or not
+        // To intersect at least one line's point must lay on the other one.
+        // A point lays on a line if it is colinear to the line's endpoints and lays in the
+        // rectangle delimited by the line's endpoints.
+        //
+        // If no special case applies neither the expression evaluates to false.
+        if (IntersectionMetrics.ENABLED && (orientationPPQ1 == COLINEAR ||
+                orientationPPQ2 == COLINEAR || orientationQQP1 == COLINEAR ||
+                orientationQQP2 == COLINEAR))
+            IntersectionMetrics.get().colinearCase();
+
+        return
+                (orientationPPQ1 == COLINEAR && withinRectangle(q1x, q1y, p1x, p1y, p2x, p2y)) ||
+                (orientationPPQ2 == COLINEAR && withinRectangle(q2x, q2y, p1x, p1y, p2x, p2y)) ||
+                (orientationQQP1 == COLINEAR && withinRectangle(p1x, p1y, q1x, q1y, q2x, q2y)) ||
+                (orientationQQP2 == COLINEAR && withinRectangle(p2x, p2y, q1x, q1y, q2x, q2y));
+    }
+
+    // results of orientation()
+    public static final int CLOCKWISE = -1;
+    public static final int COLINEAR = 0;
+    public static final int COUNTERCLOCKWISE = 1;
+
+    // Relative error bound of the fast orientation test, taken from Shewchuk's "Adaptive
+    // Precision Floating-Point Arithmetic and Fast Robust Geometric Predicates": (3 + 16e) * e
+    // with e = 2^-53 being the machine epsilon of double.
+    private static final double ORIENTATION_ERROR_BOUND = (3.0 + 16.0 * 0x1p-53) * 0x1p-53;
+
+    /**
+     * Get the orientation of the triangle made up of the points p and q which are the endpoints
+     * of a line and the separate point t.
+     *
+     * The point and the line form a triangle whose edges can be run along starting at the first
+     * endpoint of the line, passing the second endpoint and the separate point and finally
+     * arriving at the line's first endpoint again: p -> q -> t -> p
+     *
+     * This run is clockwise, counterclockwise or colinear in the special case of all three points
+     * are aligned. Its direction is the sign of the cross product (q - p) x (t - p), which is
+     * computed without any division, so vertical lines need no special treatment.
+     *
+     * The cross product is first evaluated in plain double arithmetic. Only if its absolute value
+     * is too small to be sure about the sign, i.e. the points are nearly colinear, it is
+     * evaluated again with exact arithmetic. The result is therefore always correct for the given
+     * coordinates, while the common case costs just two multiplications.
+     *
+     * @param px x coordinate of first endpoint of line
+     * @param py y coordinate of first endpoint of line
+     * @param qx x coordinate of second endpoint of line
+     * @param qy y coordinate of second endpoint of line
+     * @param tx x coordinate of separate point t
+     * @param ty y coordinate of separate point t
+     * @return CLOCKWISE, COUNTERCLOCKWISE or COLINEAR
+     */
+    public static int orientation(double px, double py, double qx, double qy,
+                                  double tx, double ty) {
+        double detLeft = (qx - px) * (ty - py);
+        double detRight = (qy - py) * (tx - px);
+        double det = detLeft - detRight;
+
+        double errorBound = ORIENTATION_ERROR_BOUND * (Math.abs(detLeft) + Math.abs(detRight));
+        if (det > errorBound || -det > errorBound)
+            return det > 0 ? COUNTERCLOCKWISE : CLOCKWISE;
+
+        return orientationExact(px, py, qx, qy, tx, ty);
+    }
+
+    /**
+     * Get if the lines (p1 - p2) and (q1 - q2) intersect, for points on an integer grid. The
+     * cross products are computed exactly in {@code long} arithmetic, without any floating point
+     * operation. This is exact as long as all coordinates are within +-{@link #MAX_GRID}.
+     *
+     * @return true if the lines intersect, false otherwise
+     * @see #linesIntersect(Point, Point, Point, Point)
+     */
+    public static boolean gridLinesIntersect(long p1x, long p1y, long p2x, long p2y,
+                                             long q1x, long q1y, long q2x, long q2y) {
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().segmentPairTested();
+
+        if (max(p1x, p2x) < min(q1x, q2x) || max(q1x, q2x) < min(p1x, p2x) ||
+                max(p1y, p2y) < min(q1y, q2y) || max(q1y, q2y) < min(p1y, p2y)) {
+            if (IntersectionMetrics.ENABLED)
+                IntersectionMetrics.get().boundingBoxRejected();
+
+            return false;
+        }
+
+        int orientationPPQ1 = gridOrientation(p1x, p1y, p2x, p2y, q1x, q1y);
+        int orientationPPQ2 = gridOrientation(p1x, p1y, p2x, p2y, q2x, q2y);
+        int orientationQQP1 = gridOrientation(q1x, q1y, q2x, q2y, p1x, p1y);
+        int orientationQQP2 = gridOrientation(q1x, q1y, q2x, q2y, p2x, p2y);
+
+        // same cases as in linesIntersect(double, ...)
+        if (orientationPPQ1 != orientationPPQ2 && orientationQQP1 != orientationQQP2)
+            return true;
+
+        // an endpoint colinear to the other line lays on it if it is within the line's bounds
+        return
+                (orientationPPQ1 == COLINEAR && min(p1x, p2x) <= q1x && q1x <= max(p1x, p2x) &&
+                        min(p1y, p2y) <= q1y && q1y <= max(p1y, p2y)) ||
+                (orientationPPQ2 == COLINEAR && min(p1x, p2x) <= q2x && q2x <= max(p1x, p2x) &&
+                        min(p1y, p2y) <= q2y && q2y <= max(p1y, p2y)) ||
+                (orientationQQP1 == COLINEAR && min(q1x, q2x) <= p1x && p1x <= max(q1x, q2x) &&
+                        min(q1y, q2y) <= p1y && p1y <= max(q1y, q2y)) ||
+                (orientationQQP2 == COLINEAR && min(q1x, q2x) <= p2x && p2x <= max(q1x, q2x) &&
+                        min(q1y, q2y) <= p2y && p2y <= max(q1y, q2y));
+    }
+
+    // Largest absolute grid coordinate. Differences of coordinates then fit into 31 bits and
+    // cross products into 63 bits, so nothing overflows a long.
+    public static final long MAX_GRID = (1L << 30) - 1;
+
+    /**
+     * Get the orientation of the points p, q and t on an integer grid, like
+     * {@link #orientation(double, double, double, double, double, double)} does for any points.
+     *
+     * @return CLOCKWISE, COUNTERCLOCKWISE or COLINEAR
+     */
+    public static int gridOrientation(long px, long py, long qx, long qy, long tx, long ty) {
+        return Long.signum((qx - px) * (ty - py) - (qy - py) * (tx - px));
+    }
+
+    /**
+     * Exact fallback of {@link #orientation(double, double, double, double, double, double)}.
+     * Every double is a binary fraction, so the cross product can be computed without any
+     * rounding by {@code BigDecimal}. This is slow but only needed for nearly colinear points.
+     */
+    private static int orientationExact(double px, double py, double qx, double qy,
+                                        double tx, double ty) {
+        BigDecimal detLeft, detRight;
+
+        try {
+            BigDecimal bpx = new BigDecimal(px);
+            BigDecimal bpy = new BigDecimal(py);
+
+            detLeft = new BigDecimal(qx).subtract(bpx).multiply(new BigDecimal(ty).subtract(bpy));
+            detRight = new BigDecimal(qy).subtract(bpy).multiply(new BigDecimal(tx).subtract(bpx));
+        } catch (NumberFormatException e) {
+            // infinite or NaN coordinates have no exact value
+            return COLINEAR;
+        }
+
+        return detLeft.compareTo(detRight);
+    }
+
+    /**
+     * Get the squared distance between the lines (p1 - p2) and (q1 - q2). It is 0 exactly if
+     * {@link #linesIntersect(double, double, double, double, double, double, double, double)}
+     * is true, otherwise the closest points of lines that don't cross are at an endpoint of one
+     * of them.
+     *
+     * @return Squared distance in units.
+     */
+    public static double linesDistanceSquared(double p1x, double p1y, double p2x, double p2y,
+                                              double q1x, double q1y, double q2x, double q2y) {
+        if (linesIntersect(p1x, p1y, p2x, p2y, q1x, q1y, q2x, q2y))
+            return 0;
+
+        return min(
+                min(pointLineDistanceSquared(p1x, p1y, q1x, q1y, q2x, q2y),
+                        pointLineDistanceSquared(p2x, p2y, q1x, q1y, q2x, q2y)),
+                min(pointLineDistanceSquared(q1x, q1y, p1x, p1y, p2x, p2y),
+                        pointLineDistanceSquared(q2x, q2y, p1x, p1y, p2x, p2y)));
+    }
+
+    /**
+     * Get the squared distance between the point t and the line (p - q).
+     */
+    static double pointLineDistanceSquared(double tx, double ty,
+                                           double px, double py, double qx, double qy) {
+        double dx = qx - px, dy = qy - py;
+        double lengthSquared = dx * dx + dy * dy;
+
+        // position of the closest point on the line, from 0 at p to 1 at q
+        double position = lengthSquared > 0
+                ? max(0, min(1, ((tx - px) * dx + (ty - py) * dy) / lengthSquared))
+                : 0;
+
+        double deltaX = px + position * dx - tx;
+        double deltaY = py + position * dy - ty;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+
+    /**
+     * Get if the point t lays within the rectangle that is delimited by the opposite corner
+     * points p and q. Laying on one of the rectangles edges also yields true.
+     *
+     * @return True if t lays within the rectangle or on one of its edges, false otherwise.
+     */
+    private static boolean withinRectangle(double tx, double ty,
+                                           double px, double py, double qx, double qy) {
+        return
+                (min(px, qx) <= tx && tx <= max(px, qx)) &&
+                (min(py, qy) <= ty && ty <= max(py, qy));
+    }
+
+    /**
+     * Get a string representation that is useful for debugging. The format of the string is:
+     *
+     * {@code ( 1.23 | 45.67 )}
+     *
+     * @return String representation
+     */
+    @Override
+    public String toString() {
+        return "( " + String.format("%.2f", x) + " | " + String.format("%.2f", y) + " )";
+    }
+}
@@ -0,0 +1,195 @@
+package name.uhmann.pathintersection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@code PointGrid} is a spatial hash of the points of several {@code Polyline}s. It answers
+ * the question which point is closest to a location within a given radius, e.g. which point has
+ * been touched, by looking only at the cells around the location instead of at every point.
+ *
+ * Points are referred to by the id of their polyline and their index in it. Both are packed into
+ * a single {@code long} that can be taken apart by {@link #idOf(long)} and {@link #indexOf(long)}.
+ */
+public class PointGrid {
+
+    private final List<Polyline> polylines = new ArrayList<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private final double cellSize;
+
+    /**
+     * Create an empty {@code PointGrid}. Queries are fastest if the cell size is about the
+     * radius that is usually searched.
+     *
+     * @param cellSize Width and height of a cell in units.
+     */
+    public PointGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add a polyline and register all of its points.
+     *
+     * @param polyline Polyline to add.
+     * @return Id of the polyline within the grid.
+     */
+    public int add(Polyline polyline) {
+        int id = polylines.size();
+        polylines.add(polyline);
+
+        for (int index = 0; index < polyline.length(); index++)
+            insert(id, index);
+
+        return id;
+    }
+
+    /**
+     * Register a point in the cell at its current location.
+     *
+     * @param id Id of the polyline.
+     * @param index Index of the point in the polyline.
+     */
+    public void insert(int id, int index) {
+        Polyline polyline = polylines.get(id);
+        Long key = key(cell(polyline.x(index)), cell(polyline.y(index)));
+
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell();
+            cells.put(key, cell);
+        }
+        cell.add(entry(id, index));
+    }
+
+    /**
+     * Unregister a point. This has to be done before it is moved, as it is looked up in the cell
+     * at its current location.
+     *
+     * @param id Id of the polyline.
+     * @param index Index of the point in the polyline.
+     */
+    public void remove(int id, int index) {
+        Polyline polyline = polylines.get(id);
+        Long key = key(cell(polyline.x(index)), cell(polyline.y(index)));
+
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(entry(id, index)) && cell.size == 0)
+            cells.remove(key);
+    }
+
+    /**
+     * Register all points again, e.g. after points have been added to or removed from a
+     * polyline.
+     */
+    public void rebuild() {
+        cells.clear();
+
+        for (int id = 0; id < polylines.size(); id++)
+            for (int index = 0; index < polylines.get(id).length(); index++)
+                insert(id, index);
+    }
+
+    /**
+     * Find the point that is closest to the specified location and less than the specified
+     * radius away from it.
+     *
+     * @param x X coordinate of the location in units.
+     * @param y Y coordinate of the location in units.
+     * @param radius Maximum distance in units.
+     * @return Packed id and index of the closest point, -1 if no point is close enough.
+     */
+    public long nearest(double x, double y, double radius) {
+        long nearest = -1;
+        double minDistanceSquared = radius * radius;
+
+        int x0 = cell(x - radius), x1 = cell(x + radius);
+        int y0 = cell(y - radius), y1 = cell(y + radius);
+
+        for (int cx = x0; cx <= x1; cx++)
+            for (int cy = y0; cy <= y1; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.size; i++) {
+                    long entry = cell.entries[i];
+                    Polyline polyline = polylines.get(idOf(entry));
+
+                    double deltaX = polyline.x(indexOf(entry)) - x;
+                    double deltaY = polyline.y(indexOf(entry)) - y;
+                    double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+
+                    if (IntersectionMetrics.ENABLED)
+                        IntersectionMetrics.get().hitTestCandidate();
+
+                    if (distanceSquared < minDistanceSquared) {
+                        nearest = entry;
+                        minDistanceSquared = distanceSquared;
+                    }
+                }
+            }
+
+        return nearest;
+    }
+
+    /**
+     * Get the polyline id from a result of {@link #nearest(double, double, double)}.
+     *
+     * @param entry Packed id and index.
+     * @return Id of the polyline.
+     */
+    public static int idOf(long entry) {
+        return (int)(entry >>> 32);
+    }
+
+    /**
+     * Get the point index from a result of {@link #nearest(double, double, double)}.
+     *
+     * @param entry Packed id and index.
+     * @return Index of the point in its polyline.
+     */
+    public static int indexOf(long entry) {
+        return (int)entry;
+    }
+
+    private int cell(double coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private static long entry(int id, int index) {
+        return ((long)id << 32) | (index & 0xffffffffL);
+    }
+
+    /**
+     * Points registered in a cell, stored as polyline id and point index packed into a long.
+     */
+    private static class Cell {
+        long[] entries = new long[4];
+        int size;
+
+        void add(long entry) {
+            if (size == entries.length)
+                entries = Arrays.copyOf(entries, size * 2);
+
+            entries[size++] = entry;
+        }
+
+        boolean remove(long entry) {
+            for (int i = 0; i < size; i++)
+                if (entries[i] == entry) {
+                    entries[i] = entries[--size];
+                    return true;
+                }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package name.uhmann.pathintersection;
+
+/**
+ * A {@code Polyline} provides read access to the coordinates of a sequence of connected points
+ * by index. The intersection algorithms work on this interface so that they can run straight
+ * over packed coordinates without dereferencing {@code Point} objects.
+ */
+public interface Polyline {
+
+    /**
+     * Get the number of points.
+     *
+     * @return Number of points.
+     */
+    int length();
+
+    /**
+     * Get the x coordinate of the point at the specified index.
+     *
+     * @param index Point's index.
+     * @return X coordinate in units.
+     */
+    double x(int index);
+
+    /**
+     * Get the y coordinate of the point at the specified index.
+     *
+     * @param index Point's index.
+     * @return Y coordinate in units.
+     */
+    double y(int index);
+}
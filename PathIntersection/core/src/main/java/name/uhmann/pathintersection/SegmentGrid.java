@@ -0,0 +1,290 @@
+package name.uhmann.pathintersection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * A {@code SegmentGrid} is a spatial hash of the lines of several {@code Polyline}s. The plane is
+ * divided into square cells of equal size and every line is registered in all cells that its
+ * bounding box covers. Only cells that contain lines are stored.
+ *
+ * Lines can only intersect if they share a cell, so intersections between polylines are found by
+ * comparing the lines of different polylines within each cell. A pair of lines usually shares
+ * more than one cell. To count it only once it is checked in a single cell: the one containing
+ * the lower left corner of the overlap of the two bounding boxes.
+ *
+ * The cell size is derived from the average length of the lines when the grid is built, so that
+ * a typical line covers only a few cells. It is never smaller than a sixteenth of the longest
+ * line. A line that is inserted later may be a lot longer, e.g. while one of its points is
+ * dragged far away. If it would cover more than {@link #MAX_CELLS} cells in either direction the
+ * grid is rebuilt with a cell size that fits the new line, so no line ever covers more than
+ * MAX_CELLS x MAX_CELLS cells. As the new size fits lines of twice the length, a line that keeps
+ * growing only causes a rebuild whenever its length has doubled.
+ */
+public class SegmentGrid {
+
+    // most cells that a line may cover in either direction before the grid is rebuilt
+    static final int MAX_CELLS = 32;
+
+    private final List<Polyline> polylines = new ArrayList<>();
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    private double cellSize = 1;
+
+    /**
+     * Add a polyline and register all of its lines.
+     *
+     * @param polyline Polyline to add.
+     * @return Id of the polyline within the grid, used to refer to its lines.
+     */
+    public int add(Polyline polyline) {
+        int id = polylines.size();
+        polylines.add(polyline);
+
+        for (int line = 0; line < polyline.length() - 1; line++)
+            if (!register(id, line, false)) {
+                // registers the remaining lines as well
+                rebuild();
+                break;
+            }
+
+        return id;
+    }
+
+    /**
+     * Register the line of the specified polyline in all cells that it covers. If the line is
+     * too long for the current cell size, the whole grid is rebuilt instead, which also
+     * registers all other lines that have been removed but not inserted again.
+     *
+     * @param id Id of the polyline.
+     * @param line Index of the line in the polyline.
+     */
+    public void insert(int id, int line) {
+        // the line is already registered if a rebuild happened since it was removed
+        if (!register(id, line, true))
+            rebuild();
+    }
+
+    /**
+     * Register the line in all cells that it covers, unless there are too many of them.
+     *
+     * @param once {@code true} to skip cells in which the line is registered already.
+     * @return {@code false} if the line is too long and has not been registered.
+     */
+    private boolean register(int id, int line, boolean once) {
+        Polyline polyline = polylines.get(id);
+        long entry = entry(id, line);
+
+        int x0 = cell(min(polyline.x(line), polyline.x(line + 1)));
+        int y0 = cell(min(polyline.y(line), polyline.y(line + 1)));
+        int x1 = cell(max(polyline.x(line), polyline.x(line + 1)));
+        int y1 = cell(max(polyline.y(line), polyline.y(line + 1)));
+
+        if ((long)x1 - x0 >= MAX_CELLS || (long)y1 - y0 >= MAX_CELLS)
+            return false;
+
+        for (int cx = x0; cx <= x1; cx++)
+            for (int cy = y0; cy <= y1; cy++) {
+                Long key = key(cx, cy);
+                Cell cell = cells.get(key);
+                if (cell == null) {
+                    cell = new Cell();
+                    cells.put(key, cell);
+                }
+                if (!once || !cell.contains(entry))
+                    cell.add(entry);
+            }
+
+        return true;
+    }
+
+    /**
+     * Unregister the line of the specified polyline. This has to be done before its points are
+     * moved, as the line is looked up in the cells covered by its current location.
+     *
+     * @param id Id of the polyline.
+     * @param line Index of the line in the polyline.
+     */
+    public void remove(int id, int line) {
+        Polyline polyline = polylines.get(id);
+        long entry = entry(id, line);
+
+        int x0 = cell(min(polyline.x(line), polyline.x(line + 1)));
+        int y0 = cell(min(polyline.y(line), polyline.y(line + 1)));
+        int x1 = cell(max(polyline.x(line), polyline.x(line + 1)));
+        int y1 = cell(max(polyline.y(line), polyline.y(line + 1)));
+
+        for (int cx = x0; cx <= x1; cx++)
+            for (int cy = y0; cy <= y1; cy++) {
+                Long key = key(cx, cy);
+                Cell cell = cells.get(key);
+                if (cell != null && cell.remove(entry) && cell.size == 0)
+                    cells.remove(key);
+            }
+    }
+
+    /**
+     * Register all lines again, e.g. after points have been added to or removed from a polyline.
+     * The cell size is tuned to the current lengths of the lines.
+     */
+    public void rebuild() {
+        double totalLength = 0;
+        double maxLength = 0;
+        int lineCount = 0;
+
+        for (Polyline polyline : polylines)
+            for (int line = 0; line < polyline.length() - 1; line++) {
+                double length = Math.hypot(polyline.x(line + 1) - polyline.x(line),
+                        polyline.y(line + 1) - polyline.y(line));
+                totalLength += length;
+                maxLength = max(maxLength, length);
+                lineCount++;
+            }
+
+        cellSize = totalLength > 0 ? max(totalLength / lineCount, maxLength / 16) : 1;
+
+        // every line covers at most 17 cells in either direction now
+        cells.clear();
+        for (int id = 0; id < polylines.size(); id++)
+            for (int line = 0; line < polylines.get(id).length() - 1; line++)
+                register(id, line, false);
+    }
+
+    /**
+     * Get the number of pairs of intersecting lines of different polylines.
+     *
+     * @return Number of intersecting pairs of lines.
+     */
+    public int countIntersections() {
+        int count = 0;
+
+        for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+            long key = entry.getKey();
+            Cell cell = entry.getValue();
+
+            for (int i = 0; i < cell.size; i++)
+                for (int j = i + 1; j < cell.size; j++)
+                    if (intersectInCell(cell.entries[i], cell.entries[j], key))
+                        count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the number of lines of other polylines that intersect the specified line.
+     *
+     * @param id Id of the polyline.
+     * @param line Index of the line in the polyline.
+     * @return Number of intersecting lines.
+     */
+    public int countIntersections(int id, int line) {
+        Polyline polyline = polylines.get(id);
+        long entry = entry(id, line);
+        int count = 0;
+
+        int x0 = cell(min(polyline.x(line), polyline.x(line + 1)));
+        int y0 = cell(min(polyline.y(line), polyline.y(line + 1)));
+        int x1 = cell(max(polyline.x(line), polyline.x(line + 1)));
+        int y1 = cell(max(polyline.y(line), polyline.y(line + 1)));
+
+        for (int cx = x0; cx <= x1; cx++)
+            for (int cy = y0; cy <= y1; cy++) {
+                long key = key(cx, cy);
+                Cell cell = cells.get(key);
+                if (cell == null)
+                    continue;
+
+                for (int i = 0; i < cell.size; i++)
+                    if (intersectInCell(entry, cell.entries[i], key))
+                        count++;
+            }
+
+        return count;
+    }
+
+    /**
+     * Get if two lines belong to different polylines, intersect and the specified cell is the
+     * one in which their intersection is counted.
+     */
+    private boolean intersectInCell(long a, long b, long key) {
+        int idA = (int)(a >>> 32);
+        int idB = (int)(b >>> 32);
+        if (idA == idB)
+            return false;
+
+        Polyline pa = polylines.get(idA);
+        Polyline pb = polylines.get(idB);
+        int i = (int)a;
+        int j = (int)b;
+
+        double ax1 = pa.x(i), ay1 = pa.y(i), ax2 = pa.x(i + 1), ay2 = pa.y(i + 1);
+        double bx1 = pb.x(j), by1 = pb.y(j), bx2 = pb.x(j + 1), by2 = pb.y(j + 1);
+
+        // lower left corner of the overlap of both bounding boxes
+        double x = max(min(ax1, ax2), min(bx1, bx2));
+        double y = max(min(ay1, ay2), min(by1, by2));
+        if (key(cell(x), cell(y)) != key)
+            return false;
+
+        if (Path.onSameGrid(pa, pb)) {
+            Path<?> ga = (Path<?>) pa;
+            Path<?> gb = (Path<?>) pb;
+            return Point.gridLinesIntersect(ga.gridX(i), ga.gridY(i), ga.gridX(i + 1),
+                    ga.gridY(i + 1), gb.gridX(j), gb.gridY(j), gb.gridX(j + 1), gb.gridY(j + 1));
+        }
+
+        return Point.linesIntersect(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2);
+    }
+
+    private int cell(double coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private static long entry(int id, int line) {
+        return ((long)id << 32) | (line & 0xffffffffL);
+    }
+
+    /**
+     * Lines registered in a cell, stored as polyline id and line index packed into a long.
+     */
+    private static class Cell {
+        long[] entries = new long[4];
+        int size;
+
+        void add(long entry) {
+            if (size == entries.length)
+                entries = Arrays.copyOf(entries, size * 2);
+
+            entries[size++] = entry;
+        }
+
+        boolean contains(long entry) {
+            for (int i = 0; i < size; i++)
+                if (entries[i] == entry)
+                    return true;
+
+            return false;
+        }
+
+        boolean remove(long entry) {
+            for (int i = 0; i < size; i++)
+                if (entries[i] == entry) {
+                    entries[i] = entries[--size];
+                    return true;
+                }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package name.uhmann.pathintersection;
+
+/**
+ * A {@code SegmentKernel} tests one line against a block of consecutive lines whose coordinates
+ * are packed into arrays, like those of a {@link Path}. It pays off where long runs of lines are
+ * tested without any boxes in between, i.e. in {@link Path#intersectsBruteForce(Path)}.
+ *
+ * The queries of {@link BoundingVolumeHierarchy} don't use it: their leaves hold fewer lines than
+ * a vector, and stopping the walk at nodes of a whole block or at a vector's width tests so many
+ * more lines than the boxes let through that it wasn't faster on interleaved tracks.
+ *
+ * The kernel returned by {@link #get()} is scalar, unless the JVM supports the Vector API of
+ * JDK 16 and later, i.e. it was started with {@code --add-modules jdk.incubator.vector}, and the
+ * simd module is on the class path. Then the kernel tests several lines per instruction. Both
+ * return exactly what {@link Point#linesIntersect(Point, Point, Point, Point)} returns for each
+ * pair, so the choice never changes a result.
+ *
+ * The system property {@code pathintersection.kernel=scalar} forces the scalar kernel, e.g. to
+ * compare both in a benchmark.
+ */
+public abstract class SegmentKernel {
+
+    // most lines that one call can test, one bit of the hit mask each
+    public static final int MAX_LINES = 64;
+
+    private static final String VECTOR_KERNEL = "name.uhmann.pathintersection.VectorSegmentKernel";
+
+    protected SegmentKernel() {
+    }
+
+    /**
+     * Get the fastest kernel that this JVM supports.
+     *
+     * @return The kernel.
+     */
+    public static SegmentKernel get() {
+        return Holder.INSTANCE;
+    }
+
+    // Loaded on the first call of get() rather than with this class, which is also initialized
+    // as the superclass of the vector kernel, before the vector kernel can be created.
+    private static class Holder {
+        static final SegmentKernel INSTANCE = load();
+    }
+
+    private static SegmentKernel load() {
+        if (!"scalar".equals(System.getProperty("pathintersection.kernel"))) {
+            try {
+                return (SegmentKernel) Class.forName(VECTOR_KERNEL).newInstance();
+            } catch (Exception | LinkageError e) {
+                // no simd module or no Vector API, fall back to the scalar kernel
+            }
+        }
+
+        return new Scalar();
+    }
+
+    /**
+     * Get if the kernel tests several lines at once. Callers keep their own scalar loops
+     * otherwise, which the JIT compiles together with the surrounding query.
+     *
+     * @return {@code true} for the vector kernel, {@code false} for the scalar one.
+     */
+    public boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Test the line (p - q) against the lines (xs[i], ys[i]) - (xs[i + 1], ys[i + 1]) for all i
+     * in [from, to).
+     *
+     * @param px x coordinate of the line's first endpoint
+     * @param py y coordinate of the line's first endpoint
+     * @param qx x coordinate of the line's second endpoint
+     * @param qy y coordinate of the line's second endpoint
+     * @param xs X coordinates of the points of the block, up to index {@code to}.
+     * @param ys Y coordinates of the points of the block, up to index {@code to}.
+     * @param from Index of the first line to test.
+     * @param to Index after the last line to test, at most {@link #MAX_LINES} after from.
+     * @return Hit mask, bit i - from is set if line i crosses or touches (p - q).
+     */
+    public abstract long intersections(double px, double py, double qx, double qy,
+                                       double[] xs, double[] ys, int from, int to);
+
+    /**
+     * The kernel that tests one pair of lines after the other.
+     */
+    static class Scalar extends SegmentKernel {
+
+        @Override
+        public long intersections(double px, double py, double qx, double qy,
+                                  double[] xs, double[] ys, int from, int to) {
+            long hits = 0;
+
+            for (int i = from; i < to; i++)
+                if (Point.linesIntersect(xs[i], ys[i], xs[i + 1], ys[i + 1], px, py, qx, qy))
+                    hits |= 1L << (i - from);
+
+            return hits;
+        }
+    }
+}
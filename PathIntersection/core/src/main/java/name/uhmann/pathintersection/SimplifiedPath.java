@@ -0,0 +1,195 @@
+package name.uhmann.pathintersection;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+
+/**
+ * A {@code SimplifiedPath} is a coarser version of a polyline that keeps only some of its points,
+ * chosen by the Douglas-Peucker algorithm: a run of points is replaced by the line between its
+ * first and last point if no point of the run is farther away from that line than a tolerance,
+ * otherwise the run is split at its farthest point and both halves are simplified in turn.
+ *
+ * The largest distance of a dropped point from its replacing line is kept as the error bound.
+ * Every line of the original polyline lies within that distance of the simplified one, so two
+ * polylines can only intersect where their simplified versions come within the sum of both error
+ * bounds. {@link #intersects} checks the simplified versions first and only looks at the original
+ * lines where they come that close.
+ *
+ * Densely sampled tracks whose points are nearly colinear shrink to a small fraction of their
+ * points this way.
+ */
+public class SimplifiedPath implements Polyline {
+
+    private final Polyline polyline;
+
+    // indices of the kept points in the original polyline, in ascending order
+    private final int[] kept;
+    private final double error;
+
+    // bounding boxes over the simplified lines, built when needed
+    private BoundingVolumeHierarchy hierarchy;
+
+    /**
+     * Simplify a polyline. The simplified path reads its coordinates from the polyline, so it
+     * has to be simplified again when the polyline changes.
+     *
+     * @param polyline Polyline to simplify.
+     * @param tolerance Largest distance in units that a dropped point may have from the
+     *                  simplified path. All points are kept if it isn't positive.
+     */
+    public SimplifiedPath(Polyline polyline, double tolerance) {
+        this.polyline = polyline;
+        int length = polyline.length();
+
+        if (!(tolerance > 0) || length <= 2) {
+            kept = new int[length];
+            for (int i = 0; i < length; i++)
+                kept[i] = i;
+            error = 0;
+            return;
+        }
+
+        boolean[] keep = new boolean[length];
+        keep[0] = true;
+        keep[length - 1] = true;
+
+        double toleranceSquared = tolerance * tolerance;
+        double maxErrorSquared = 0;
+
+        // stack of runs [from, to] whose inner points still have to be checked
+        int[] stack = new int[64];
+        int size = 0;
+        stack[size++] = 0;
+        stack[size++] = length - 1;
+
+        while (size > 0) {
+            int to = stack[--size];
+            int from = stack[--size];
+
+            int farthest = -1;
+            double farthestSquared = -1;
+            for (int i = from + 1; i < to; i++) {
+                double distanceSquared = Point.pointLineDistanceSquared(polyline.x(i),
+                        polyline.y(i), polyline.x(from), polyline.y(from),
+                        polyline.x(to), polyline.y(to));
+                if (distanceSquared > farthestSquared) {
+                    farthest = i;
+                    farthestSquared = distanceSquared;
+                }
+            }
+
+            if (farthest < 0)
+                continue;
+
+            if (farthestSquared <= toleranceSquared) {
+                maxErrorSquared = max(maxErrorSquared, farthestSquared);
+                continue;
+            }
+
+            keep[farthest] = true;
+            if (size + 4 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[size++] = from;
+            stack[size++] = farthest;
+            stack[size++] = farthest;
+            stack[size++] = to;
+        }
+
+        int count = 0;
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++)
+            if (keep[i])
+                indices[count++] = i;
+        kept = Arrays.copyOf(indices, count);
+
+        // the distances are rounded, so widen the bound a little to stay on the safe side
+        error = Math.sqrt(maxErrorSquared) * (1 + 1e-9);
+    }
+
+    /**
+     * Get the error bound, the largest distance of a line of the original polyline from the
+     * simplified path.
+     *
+     * @return Distance in units.
+     */
+    public double getError() {
+        return error;
+    }
+
+    /**
+     * Get the index of a kept point in the original polyline.
+     *
+     * @param index Index of the point in the simplified path.
+     * @return Index of the point in the original polyline.
+     */
+    public int originalIndex(int index) {
+        return kept[index];
+    }
+
+    @Override
+    public int length() {
+        return kept.length;
+    }
+
+    @Override
+    public double x(int index) {
+        return polyline.x(kept[index]);
+    }
+
+    @Override
+    public double y(int index) {
+        return polyline.y(kept[index]);
+    }
+
+    /**
+     * Get the hierarchy of bounding boxes over the lines of the simplified path.
+     *
+     * @return The simplified path's bounding volume hierarchy.
+     */
+    public BoundingVolumeHierarchy getHierarchy() {
+        if (hierarchy == null)
+            hierarchy = new BoundingVolumeHierarchy(this);
+
+        return hierarchy;
+    }
+
+    /**
+     * Get if the original polylines of two simplified paths cross or touch. Pairs of simplified
+     * lines that are farther apart than both error bounds together are skipped. For the other
+     * pairs, the original lines that they replace are checked against each other.
+     *
+     * Both steps together test as many pairs of leaves of the hierarchies as the walk of
+     * {@link BoundingVolumeHierarchy#intersects(BoundingVolumeHierarchy,
+     * BoundingVolumeHierarchy)} over the original polylines. If the simplified paths come close
+     * to each other too often for that, e.g. for interleaved tracks, the original polylines are
+     * checked as a whole.
+     *
+     * @param a First simplified path.
+     * @param originalA Hierarchy over the lines of the first path's original polyline.
+     * @param b Second simplified path.
+     * @param originalB Hierarchy over the lines of the second path's original polyline.
+     * @return {@code true} if the original polylines intersect, {@code false} otherwise.
+     */
+    public static boolean intersects(final SimplifiedPath a,
+                                     final BoundingVolumeHierarchy originalA,
+                                     final SimplifiedPath b,
+                                     final BoundingVolumeHierarchy originalB) {
+        final int[] budget = {BoundingVolumeHierarchy.leafPairBudget(originalA, originalB)};
+
+        boolean found = BoundingVolumeHierarchy.linesWithin(a.getHierarchy(), b.getHierarchy(),
+                a.error + b.error, budget, new BoundingVolumeHierarchy.LinePairVisitor() {
+                    @Override
+                    public boolean visit(int lineA, int lineB) {
+                        // stops the search if the lines intersect or the budget runs out
+                        return BoundingVolumeHierarchy.intersects(
+                                originalA, a.kept[lineA], a.kept[lineA + 1],
+                                originalB, b.kept[lineB], b.kept[lineB + 1], budget) != 0;
+                    }
+                });
+        if (budget[0] >= 0)
+            return found;
+
+        return BoundingVolumeHierarchy.intersects(originalA, originalB);
+    }
+}
@@ -0,0 +1,373 @@
+package name.uhmann.pathintersection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The {@code SweepLine} decides if any two of a number of {@code Path}s intersect. It implements
+ * the any-intersection algorithm by Shamos and Hoey and therefore runs in O(n log n) for n
+ * segments in total instead of testing every segment against every other one.
+ *
+ * A vertical line is swept from left to right over the endpoints of all segments. The segments
+ * that are currently cut by the sweep line are kept ordered from bottom to top. Two segments
+ * can only intersect if they are neighbours in that order at some point, so only neighbours
+ * are checked with {@link Point#linesIntersect(Point, Point, Point, Point)} which yields the
+ * same result as the brute force approach, including touching and colinear segments.
+ *
+ * The order of the segments stays valid as long as no two of them cross. Consecutive segments
+ * of the same path always touch at their shared point which is no problem. But if a path
+ * crosses itself before an intersection between two paths is found, which is common for GPS
+ * tracks, the order breaks there. The check then goes on with the {@link IntersectionSweep},
+ * which swaps crossing segments of the same path in the order instead of reporting them and
+ * stops at the first pair of different paths. That keeps it at O((n + k) log n) for k
+ * self-crossings, while the plain sweep above needs no exact crossing points at all.
+ */
+public class SweepLine {
+
+    private static final int NONE = 0;      // no intersection that needs to be reported
+    private static final int CROSS = 1;     // segments of different paths intersect
+    private static final int SELF = 2;      // a path intersects itself, the sweep is invalid
+
+    /**
+     * Get if any two of the specified paths intersect. Two paths intersect if any of their lines
+     * cross or touch.
+     *
+     * @param paths Paths to check.
+     * @return {@code true} if any two paths cross or touch, {@code false} otherwise.
+     */
+    public static boolean anyIntersection(List<? extends Polyline> paths) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+        boolean result = sweep(paths);
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Get if a path crosses or touches itself, as defined by {@link Path#selfIntersects()}.
+     *
+     * @param path Path to check.
+     * @return {@code true} if the path intersects itself, {@code false} otherwise.
+     */
+    public static boolean selfIntersects(Polyline path) {
+        long start = IntersectionMetrics.ENABLED ? System.nanoTime() : 0;
+
+        // a single path can't cross another one, the sweep only aborts if it crosses itself
+        boolean result = new SweepLine(Collections.singletonList(path)).sweep() == SELF;
+
+        if (IntersectionMetrics.ENABLED)
+            IntersectionMetrics.get().queryFinished(System.nanoTime() - start);
+
+        return result;
+    }
+
+    /**
+     * Same as {@link #anyIntersection(List)} but without recording a query in the metrics, for
+     * callers that record it themselves.
+     */
+    static boolean sweep(List<? extends Polyline> paths) {
+        int result = new SweepLine(paths).sweep();
+
+        if (result == SELF)
+            return IntersectionSweep.anyIntersection(paths);
+
+        return result == CROSS;
+    }
+
+    /**
+     * Get if any two of the specified paths intersect by testing every pair of segments.
+     *
+     * @param paths Paths to check.
+     * @return {@code true} if any two paths cross or touch, {@code false} otherwise.
+     */
+    static boolean anyIntersectionBruteForce(List<? extends Polyline> paths) {
+        for (int i = 0; i < paths.size(); i++)
+            for (int j = i + 1; j < paths.size(); j++)
+                if (Path.intersectsBruteForce(paths.get(i), paths.get(j)))
+                    return true;
+
+        return false;
+    }
+
+    /* Sweep state */
+
+    private final Event[] events;
+    private final TreeSet<Segment> status = new TreeSet<>(new Comparator<Segment>() {
+        @Override
+        public int compare(Segment a, Segment b) {
+            return compareSegments(a, b);
+        }
+    });
+
+    private SweepLine(List<? extends Polyline> paths) {
+        List<Segment> segments = new ArrayList<>();
+
+        // paths on the same grid are swept in grid coordinates, which the predicates decide
+        // like the grid tests of the hierarchies
+        List<Polyline> gridViews = Path.gridViews(paths);
+        if (gridViews != null)
+            paths = gridViews;
+
+        for (int i = 0; i < paths.size(); i++) {
+            Polyline path = paths.get(i);
+
+            // Zero-length segments (repeated points) are skipped, their point is part of the
+            // neighbouring segments anyway. Only a path that consists of a single location is
+            // represented by a zero-length segment.
+            int order = 0;
+            for (int j = 0; j < path.length() - 1; j++) {
+                Segment segment = new Segment(segments.size(), i, order,
+                        path.x(j), path.y(j), path.x(j + 1), path.y(j + 1));
+                if (!segment.degenerate) {
+                    segments.add(segment);
+                    order++;
+                }
+            }
+
+            if (order == 0 && path.length() > 1)
+                segments.add(new Segment(segments.size(), i, 0,
+                        path.x(0), path.y(0), path.x(1), path.y(1)));
+        }
+
+        // zero-length segments only get a single event as they are never added to the status
+        List<Event> eventList = new ArrayList<>();
+        for (Segment segment : segments) {
+            eventList.add(new Event(segment.lx, segment.ly, segment, true));
+            if (!segment.degenerate)
+                eventList.add(new Event(segment.rx, segment.ry, segment, false));
+        }
+
+        events = eventList.toArray(new Event[eventList.size()]);
+        Arrays.sort(events, new Comparator<Event>() {
+            @Override
+            public int compare(Event a, Event b) {
+                return comparePoints(a.x, a.y, b.x, b.y);
+            }
+        });
+    }
+
+    /**
+     * Run the sweep over all events. Events at the same point are handled together: first the
+     * segments ending there are removed, then the segments passing through the point are looked
+     * up and finally the segments starting there are inserted.
+     *
+     * @return CROSS if two paths intersect, SELF if the sweep was aborted because a path
+     * intersects itself, NONE otherwise.
+     */
+    private int sweep() {
+        List<Segment> batch = new ArrayList<>();
+
+        int start = 0;
+        while (start < events.length) {
+            double x = events[start].x;
+            double y = events[start].y;
+
+            int end = start;
+            batch.clear();
+            while (end < events.length && events[end].x == x && events[end].y == y)
+                batch.add(events[end++].segment);
+
+            int result = handlePoint(x, y, batch, start, end);
+            if (result != NONE)
+                return result;
+
+            start = end;
+        }
+
+        return NONE;
+    }
+
+    private int handlePoint(double x, double y, List<Segment> batch, int start, int end) {
+        int result;
+
+        // all segments at this point touch each other
+        for (int i = 0; i < batch.size(); i++)
+            for (int j = i + 1; j < batch.size(); j++)
+                if ((result = classifyTouching(batch.get(i), batch.get(j))) != NONE)
+                    return result;
+
+        // remove ending segments and check their former neighbours against each other
+        for (int i = start; i < end; i++) {
+            if (events[i].left)
+                continue;
+
+            Segment segment = events[i].segment;
+            Segment below = status.lower(segment);
+            Segment above = status.higher(segment);
+            status.remove(segment);
+
+            if (below != null && above != null && (result = classify(below, above)) != NONE)
+                return result;
+        }
+
+        // segments that pass through this point touch the segments that start or end here
+        Segment probe = new Segment(-1, -1, -1, x, y, x, y);
+        Segment through = status.ceiling(probe);
+        if (through != null && compareSegments(probe, through) == 0)
+            return through.path != batch.get(0).path ? CROSS : SELF;
+
+        // insert starting segments and check them against their new neighbours
+        for (int i = start; i < end; i++) {
+            Segment segment = events[i].segment;
+            if (!events[i].left || segment.degenerate)
+                continue;
+
+            status.add(segment);
+            Segment below = status.lower(segment);
+            Segment above = status.higher(segment);
+
+            if (below != null && (result = classify(below, segment)) != NONE)
+                return result;
+            if (above != null && (result = classify(segment, above)) != NONE)
+                return result;
+        }
+
+        return NONE;
+    }
+
+    /**
+     * Classify two segments that are known to share a point.
+     */
+    private static int classifyTouching(Segment a, Segment b) {
+        if (a.path != b.path)
+            return CROSS;
+
+        return consecutiveWithoutOverlap(a, b) ? NONE : SELF;
+    }
+
+    /**
+     * Classify two segments that are neighbours in the sweep line's status.
+     */
+    private static int classify(Segment a, Segment b) {
+        if (!Point.linesIntersect(a.px, a.py, a.qx, a.qy, b.px, b.py, b.qx, b.qy))
+            return NONE;
+
+        if (a.path != b.path)
+            return CROSS;
+
+        // consecutive segments of a path share a point, that is not reported
+        return consecutiveWithoutOverlap(a, b) ? NONE : SELF;
+    }
+
+    /**
+     * Get if two segments of the same path are consecutive and only share their common point,
+     * i.e. they don't lie on top of each other.
+     */
+    private static boolean consecutiveWithoutOverlap(Segment a, Segment b) {
+        if (Math.abs(a.index - b.index) != 1)
+            return false;
+
+        Segment first = a.index < b.index ? a : b;
+        Segment second = a.index < b.index ? b : a;
+
+        // overlapping means colinear and pointing into the same direction from the shared point
+        // first.q == second.p
+        if (Point.orientation(first.px, first.py, first.qx, first.qy, second.qx, second.qy) !=
+                Point.COLINEAR)
+            return true;
+
+        return (first.px - first.qx) * (second.qx - second.px) +
+                (first.py - first.qy) * (second.qy - second.py) <= 0;
+    }
+
+    /**
+     * Order segments from bottom to top at the current position of the sweep line. The segment
+     * that starts first is used as reference and the other one's endpoints are compared to it.
+     * A probe, i.e. a zero-length segment, compares equal to all segments passing through it.
+     */
+    private static int compareSegments(Segment a, Segment b) {
+        if (a == b)
+            return 0;
+
+        if (a.degenerate)
+            return sideOf(b, a.lx, a.ly);
+        if (b.degenerate)
+            return -sideOf(a, b.lx, b.ly);
+
+        if (comparePoints(a.lx, a.ly, b.lx, b.ly) > 0 ||
+                (a.lx == b.lx && a.ly == b.ly && a.id > b.id))
+            return -compareSegments(b, a);
+
+        int side = sideOf(a, b.lx, b.ly);
+        if (side == 0)
+            side = sideOf(a, b.rx, b.ry);
+
+        // b above a means that a is below b and vice versa
+        if (side != 0)
+            return -side;
+
+        // colinear segments: any consistent order will do, they are checked as neighbours
+        return a.id < b.id ? -1 : 1;
+    }
+
+    /**
+     * Get on which side of the specified segment the point (x, y) lies.
+     *
+     * @return 1 if the point is above (left of) the segment, -1 if it is below (right of) it and
+     * 0 if it is colinear.
+     */
+    private static int sideOf(Segment segment, double x, double y) {
+        return Point.orientation(segment.lx, segment.ly, segment.rx, segment.ry, x, y);
+    }
+
+    /**
+     * Compare points lexicographically: from left to right, and from bottom to top for equal x.
+     */
+    private static int comparePoints(double ax, double ay, double bx, double by) {
+        if (ax != bx)
+            return ax < bx ? -1 : 1;
+        if (ay != by)
+            return ay < by ? -1 : 1;
+        return 0;
+    }
+
+    private static class Segment {
+        final int id;
+        final int path;     // index of the path in the checked list
+        final int index;    // position of the segment in its path, ignoring zero-length ones
+
+        // endpoints in path order
+        final double px, py, qx, qy;
+
+        // endpoints in sweep order
+        final double lx, ly, rx, ry;
+        final boolean degenerate;
+
+        Segment(int id, int path, int index, double px, double py, double qx, double qy) {
+            this.id = id;
+            this.path = path;
+            this.index = index;
+            this.px = px;
+            this.py = py;
+            this.qx = qx;
+            this.qy = qy;
+
+            boolean pFirst = comparePoints(px, py, qx, qy) <= 0;
+            lx = pFirst ? px : qx;
+            ly = pFirst ? py : qy;
+            rx = pFirst ? qx : px;
+            ry = pFirst ? qy : py;
+
+            degenerate = lx == rx && ly == ry;
+        }
+    }
+
+    private static class Event {
+        final double x, y;
+        final Segment segment;
+        final boolean left;     // true if the segment starts here, false if it ends here
+
+        Event(double x, double y, Segment segment, boolean left) {
+            this.x = x;
+            this.y = y;
+            this.segment = segment;
+            this.left = left;
+        }
+    }
+}
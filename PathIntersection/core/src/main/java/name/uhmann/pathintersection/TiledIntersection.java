@@ -0,0 +1,433 @@
+package name.uhmann.pathintersection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * {@code TiledIntersection} finds all pairs of intersecting lines of different paths of a
+ * {@code PathFile} with bounded memory, so that files much larger than the heap can be checked.
+ *
+ * The bounding box of all paths is divided into a grid of tiles, and every line is written to a
+ * file for each tile that its bounding box covers. The tiles are then checked independently by
+ * the threads of a {@code ForkJoinPool}: a tile's lines are read into memory and swept with
+ * {@link IntersectionSweep}. A tile that holds more lines than allowed is split again in the same
+ * way before it is checked. At most one tile per thread is in memory at a time.
+ *
+ * A pair of lines that covers several tiles is found in each of them. As in
+ * {@code SegmentGrid}, it is only reported by the tile that contains the lower left corner of the
+ * overlap of the two lines' bounding boxes, so every pair is reported exactly once.
+ */
+public class TiledIntersection {
+
+    // largest number of tiles per side that a tile is split into at once, which limits the number
+    // of tile files that are open at the same time
+    private static final int MAX_SPLIT = 16;
+
+    // tiles that are still too large at this depth are checked anyway
+    private static final int MAX_DEPTH = 8;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File directory;
+    private final int linesPerTile;
+    private final ForkJoinPool pool;
+
+    private final AtomicInteger nextFile = new AtomicInteger();
+
+    /**
+     * Create a {@code TiledIntersection}.
+     *
+     * @param directory Directory for the tile files. They are deleted once they are checked.
+     * @param linesPerTile Maximum number of lines that is read into memory for a tile, unless a
+     *                     tile can't be split further, e.g. because all of its lines cross.
+     * @param pool Pool whose threads check the tiles.
+     */
+    public TiledIntersection(File directory, int linesPerTile, ForkJoinPool pool) {
+        this.directory = directory;
+        this.linesPerTile = linesPerTile;
+        this.pool = pool;
+    }
+
+    /**
+     * Find all pairs of intersecting lines of different paths of the file and pass them to the
+     * visitor as they are found. The path indices are the paths' indices in the file, the pairs
+     * come in no particular order. The visitor is called from the pool's threads, but never
+     * concurrently.
+     *
+     * @param file File to check.
+     * @param visitor Visitor that receives the intersections.
+     * @throws IOException If the tile files can't be written or read.
+     */
+    public void intersections(PathFile file, IntersectionVisitor visitor) throws IOException {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        long lineCount = 0;
+
+        for (int id = 0; id < file.size(); id++) {
+            int length = file.get(id).length();
+            if (length < 2)
+                continue;
+
+            x0 = min(x0, file.getMinX(id));
+            y0 = min(y0, file.getMinY(id));
+            x1 = max(x1, file.getMaxX(id));
+            y1 = max(y1, file.getMaxY(id));
+            lineCount += length - 1;
+        }
+
+        if (lineCount == 0)
+            return;
+
+        Tile root = new Tile(null, 1, 0, 0, x0, y0, x1 - x0, y1 - y0, 0);
+        Tile[] tiles = split(root, splitCount(lineCount, 1));
+
+        try {
+            for (int id = 0; id < file.size(); id++) {
+                Polyline path = file.get(id);
+                for (int line = 0; line < path.length() - 1; line++)
+                    write(tiles, id, line, path.x(line), path.y(line),
+                            path.x(line + 1), path.y(line + 1));
+            }
+        } finally {
+            close(tiles);
+        }
+
+        List<TileTask> tasks = new ArrayList<>();
+        for (Tile tile : tiles)
+            tasks.add(new TileTask(tile, lineCount, visitor));
+
+        try {
+            pool.invoke(new TileTasks(tasks));
+        } catch (RuntimeException e) {
+            // tasks wrap the exceptions of reading and writing tiles
+            for (Throwable cause = e; cause != null; cause = cause.getCause())
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+            throw e;
+        }
+    }
+
+    private int splitCount(long lineCount, int minimum) {
+        double tiles = Math.ceil(Math.sqrt((double) lineCount / linesPerTile));
+        return (int) max(minimum, min(MAX_SPLIT, tiles));
+    }
+
+    /**
+     * Divide a tile into n x n tiles, which write their lines to new files.
+     */
+    private Tile[] split(Tile parent, int n) {
+        Tile[] tiles = new Tile[n * n];
+        double width = parent.width / n, height = parent.height / n;
+
+        for (int iy = 0; iy < n; iy++)
+            for (int ix = 0; ix < n; ix++)
+                tiles[iy * n + ix] = new Tile(parent, n, ix, iy, parent.x0(), parent.y0(),
+                        width, height, parent.depth + 1);
+
+        return tiles;
+    }
+
+    /**
+     * Write a line to all tiles that its bounding box covers.
+     */
+    private void write(Tile[] tiles, int path, int line,
+                       double px, double py, double qx, double qy) throws IOException {
+        Tile grid = tiles[0];
+        int n = grid.n;
+
+        int ix0 = grid.indexX(min(px, qx)), ix1 = grid.indexX(max(px, qx));
+        int iy0 = grid.indexY(min(py, qy)), iy1 = grid.indexY(max(py, qy));
+
+        for (int iy = iy0; iy <= iy1; iy++)
+            for (int ix = ix0; ix <= ix1; ix++) {
+                Tile tile = tiles[iy * n + ix];
+
+                if (tile.out == null) {
+                    tile.file = new File(directory, "tile-" + nextFile.getAndIncrement());
+                    tile.out = new DataOutputStream(new BufferedOutputStream(
+                            new FileOutputStream(tile.file), BUFFER_SIZE));
+                }
+
+                tile.out.writeInt(path);
+                tile.out.writeInt(line);
+                tile.out.writeDouble(px);
+                tile.out.writeDouble(py);
+                tile.out.writeDouble(qx);
+                tile.out.writeDouble(qy);
+                tile.count++;
+            }
+    }
+
+    private static void close(Tile[] tiles) throws IOException {
+        IOException exception = null;
+
+        for (Tile tile : tiles)
+            if (tile.out != null)
+                try {
+                    tile.out.close();
+                } catch (IOException e) {
+                    exception = e;
+                } finally {
+                    tile.out = null;
+                }
+
+        if (exception != null)
+            throw exception;
+    }
+
+    /**
+     * Split a tile that is too large, or read its lines and report their intersections.
+     */
+    private void check(Tile tile, long parentCount, IntersectionVisitor visitor)
+            throws IOException {
+        if (tile.count == 0)
+            return;
+
+        // stop splitting when it doesn't make the tiles smaller, as for lines that all cross
+        if (tile.count > linesPerTile && tile.depth < MAX_DEPTH && tile.count < parentCount) {
+            Tile[] tiles = split(tile, splitCount(tile.count, 2));
+
+            try (DataInputStream in = open(tile)) {
+                for (long i = 0; i < tile.count; i++)
+                    write(tiles, in.readInt(), in.readInt(), in.readDouble(), in.readDouble(),
+                            in.readDouble(), in.readDouble());
+            } finally {
+                close(tiles);
+                delete(tile);
+            }
+
+            List<TileTask> tasks = new ArrayList<>();
+            for (Tile child : tiles)
+                tasks.add(new TileTask(child, tile.count, visitor));
+            RecursiveAction.invokeAll(tasks);
+            return;
+        }
+
+        int count = (int) tile.count;
+        int[] paths = new int[count];
+        int[] lines = new int[count];
+        double[] coordinates = new double[4 * count];
+
+        try (DataInputStream in = open(tile)) {
+            for (int i = 0; i < count; i++) {
+                paths[i] = in.readInt();
+                lines[i] = in.readInt();
+                for (int j = 0; j < 4; j++)
+                    coordinates[4 * i + j] = in.readDouble();
+            }
+        } finally {
+            delete(tile);
+        }
+
+        sweep(tile, paths, lines, coordinates, visitor);
+    }
+
+    private void sweep(final Tile tile, int[] paths, int[] lines, final double[] coordinates,
+                       final IntersectionVisitor visitor) {
+        // consecutive lines of a path form a polyline, so that they don't have to be checked
+        // against each other. runStart holds the index of each run's first line.
+        final int[] runStart = new int[paths.length + 1];
+        List<Polyline> runs = new ArrayList<>();
+
+        for (int i = 0; i < paths.length; ) {
+            int start = i++;
+            while (i < paths.length && paths[i] == paths[start] &&
+                    lines[i] == lines[i - 1] + 1)
+                i++;
+
+            runStart[runs.size()] = start;
+            runs.add(new Run(coordinates, start, i - start));
+        }
+
+        final int[] pathOf = paths;
+        final int[] lineOf = lines;
+
+        IntersectionSweep.intersections(runs, new IntersectionVisitor() {
+            @Override
+            public void intersection(int runA, int lineA, int runB, int lineB,
+                                     double x, double y) {
+                int a = runStart[runA] + lineA;
+                int b = runStart[runB] + lineB;
+                if (pathOf[a] == pathOf[b])
+                    return;
+
+                // lower left corner of the overlap of both bounding boxes
+                double cornerX = max(min(coordinates[4 * a], coordinates[4 * a + 2]),
+                        min(coordinates[4 * b], coordinates[4 * b + 2]));
+                double cornerY = max(min(coordinates[4 * a + 1], coordinates[4 * a + 3]),
+                        min(coordinates[4 * b + 1], coordinates[4 * b + 3]));
+                if (!tile.contains(cornerX, cornerY))
+                    return;
+
+                if (pathOf[a] > pathOf[b]) {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+
+                synchronized (visitor) {
+                    visitor.intersection(pathOf[a], lineOf[a], pathOf[b], lineOf[b], x, y);
+                }
+            }
+        });
+    }
+
+    private static DataInputStream open(Tile tile) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                new FileInputStream(tile.file), BUFFER_SIZE));
+    }
+
+    private static void delete(Tile tile) throws IOException {
+        if (!tile.file.delete())
+            throw new IOException("can't delete " + tile.file);
+    }
+
+    /**
+     * A tile of the grid that its parent tile is divided into. The tile is responsible for the
+     * points that fall into it, points outside the grid belong to the closest tile at the border.
+     */
+    private static class Tile {
+        final Tile parent;
+        final int depth;
+
+        // the grid of the parent: number of tiles per side, origin and size of a tile
+        final int n;
+        final double gridX, gridY, width, height;
+
+        // position of this tile in the grid
+        final int ix, iy;
+
+        File file;
+        DataOutputStream out;
+        long count;
+
+        Tile(Tile parent, int n, int ix, int iy, double gridX, double gridY,
+             double width, double height, int depth) {
+            this.parent = parent;
+            this.n = n;
+            this.ix = ix;
+            this.iy = iy;
+            this.gridX = gridX;
+            this.gridY = gridY;
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+        }
+
+        double x0() {
+            return gridX + ix * width;
+        }
+
+        double y0() {
+            return gridY + iy * height;
+        }
+
+        int indexX(double x) {
+            return index(x, gridX, width);
+        }
+
+        int indexY(double y) {
+            return index(y, gridY, height);
+        }
+
+        private int index(double value, double origin, double size) {
+            if (n == 1 || !(size > 0))
+                return 0;
+
+            double index = Math.floor((value - origin) / size);
+            return (int) max(0, min(n - 1, index));
+        }
+
+        boolean contains(double x, double y) {
+            return indexX(x) == ix && indexY(y) == iy && (parent == null || parent.contains(x, y));
+        }
+    }
+
+    /**
+     * Consecutive lines of a path in a tile, stored as x1 y1 x2 y2 per line.
+     */
+    private static class Run implements Polyline {
+        private final double[] coordinates;
+        private final int start, lineCount;
+
+        Run(double[] coordinates, int start, int lineCount) {
+            this.coordinates = coordinates;
+            this.start = start;
+            this.lineCount = lineCount;
+        }
+
+        @Override
+        public int length() {
+            return lineCount + 1;
+        }
+
+        @Override
+        public double x(int index) {
+            // the last point is the second point of the last line
+            return index < lineCount
+                    ? coordinates[4 * (start + index)]
+                    : coordinates[4 * (start + index - 1) + 2];
+        }
+
+        @Override
+        public double y(int index) {
+            return index < lineCount
+                    ? coordinates[4 * (start + index) + 1]
+                    : coordinates[4 * (start + index - 1) + 3];
+        }
+    }
+
+    private class TileTask extends RecursiveAction {
+        private final Tile tile;
+        private final long parentCount;
+        private final IntersectionVisitor visitor;
+
+        TileTask(Tile tile, long parentCount, IntersectionVisitor visitor) {
+            this.tile = tile;
+            this.parentCount = parentCount;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                check(tile, parentCount, visitor);
+            } catch (IOException e) {
+                throw new TileException(e);
+            }
+        }
+    }
+
+    private static class TileTasks extends RecursiveAction {
+        private final List<TileTask> tasks;
+
+        TileTasks(List<TileTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    private static class TileException extends RuntimeException {
+        TileException(IOException cause) {
+            super(cause);
+        }
+    }
+}
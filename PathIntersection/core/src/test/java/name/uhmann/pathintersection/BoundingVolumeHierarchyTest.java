@@ -0,0 +1,185 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BoundingVolumeHierarchyTest {
+
+    @Test
+    public void boundsEncloseWholePath() throws Exception {
+        Path<Point> path = new Path<>();
+        path.add(new Point(3, 4));
+        path.add(new Point(-1, 8));
+        path.add(new Point(5, 0));
+
+        BoundingVolumeHierarchy hierarchy = path.getHierarchy();
+        assertEquals(-1, hierarchy.getMinX(), 0);
+        assertEquals(0, hierarchy.getMinY(), 0);
+        assertEquals(5, hierarchy.getMaxX(), 0);
+        assertEquals(8, hierarchy.getMaxY(), 0);
+    }
+
+    @Test
+    public void sameResultAsBruteForceWhileEditing() throws Exception {
+        Random random = new Random(3);
+
+        for (int run = 0; run < 200; run++) {
+            Path<Point> a = randomWalk(random, 1 + random.nextInt(60));
+            Path<Point> b = randomWalk(random, 1 + random.nextInt(60));
+
+            for (int edit = 0; edit < 20; edit++) {
+                assertEquals("run " + run, a.intersectsBruteForce(b), a.intersects(b));
+
+                // move, add or remove a point while the hierarchies are built
+                switch (random.nextInt(3)) {
+                    case 0:
+                        a.set(random.nextInt(a.length()),
+                                random.nextDouble() * 100, random.nextDouble() * 100);
+                        break;
+                    case 1:
+                        b.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+                        break;
+                    case 2:
+                        a.remove(random.nextInt(a.length()));
+                        break;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void countsSameAsBruteForce() throws Exception {
+        Random random = new Random(5);
+
+        for (int run = 0; run < 200; run++) {
+            Path<Point> a = randomWalk(random, 2 + random.nextInt(60));
+            Path<Point> b = randomWalk(random, 2 + random.nextInt(60));
+
+            int expected = 0;
+            for (int i = 0; i < a.length() - 1; i++) {
+                int expectedForLine = 0;
+                for (int j = 0; j < b.length() - 1; j++)
+                    if (Point.linesIntersect(a.get(i), a.get(i + 1), b.get(j), b.get(j + 1)))
+                        expectedForLine++;
+
+                assertEquals(expectedForLine, b.getHierarchy().countIntersections(
+                        a.x(i), a.y(i), a.x(i + 1), a.y(i + 1)));
+                expected += expectedForLine;
+            }
+
+            assertEquals(expected, BoundingVolumeHierarchy.countIntersections(
+                    a.getHierarchy(), b.getHierarchy()));
+        }
+    }
+
+    @Test
+    public void distancesSameAsBruteForce() throws Exception {
+        Random random = new Random(21);
+
+        for (int run = 0; run < 300; run++) {
+            Path<Point> a = randomWalk(random, 2 + random.nextInt(60));
+            Path<Point> b = randomWalk(random, 2 + random.nextInt(60));
+
+            double expected = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < a.length() - 1; i++)
+                for (int j = 0; j < b.length() - 1; j++)
+                    expected = Math.min(expected, Point.linesDistanceSquared(
+                            a.x(i), a.y(i), a.x(i + 1), a.y(i + 1),
+                            b.x(j), b.y(j), b.x(j + 1), b.y(j + 1)));
+            expected = Math.sqrt(expected);
+
+            double distance = a.minDistance(b);
+            assertEquals(expected, distance, 0);
+            assertEquals(a.intersects(b), distance == 0);
+
+            assertTrue(a.withinDistance(b, expected));
+            assertTrue(a.withinDistance(b, expected + 1));
+            if (expected > 0)
+                assertFalse(a.withinDistance(b, expected * 0.999));
+        }
+    }
+
+    @Test
+    public void interleavedPathsAreSwept() throws Exception {
+        // long parallel teeth whose boxes all overlap, too many pairs of leaves for the walk
+        Path<Point> a = new Path<>();
+        Path<Point> b = new Path<>();
+        for (int i = 0; i < 300; i++) {
+            a.add(new Point(0, 2 * i));
+            a.add(new Point(600, 2 * i + 600));
+            a.add(new Point(0, 2 * i));
+
+            b.add(new Point(601, 2 * i + 602));
+            b.add(new Point(1, 2 * i + 2));
+            b.add(new Point(601, 2 * i + 602));
+        }
+
+        assertFalse(a.intersectsBruteForce(b));
+        assertFalse(a.intersects(b));
+
+        // one tooth of the second path reaches over the first path's spine
+        b.set(301, -1, 2 * 100 + 2);
+        assertTrue(a.intersectsBruteForce(b));
+        assertTrue(a.intersects(b));
+    }
+
+    @Test
+    public void sweptPathsKeepTheirGrid() throws Exception {
+        // Interleaved teeth as above, too many for the walk, after a line of each path that only
+        // touches the other path on the grid. The walk visits the last lines first, so it gives
+        // up before it reaches the touching lines.
+        Path<Point> a = new Path<>();
+        Path<Point> b = new Path<>();
+        a.setResolution(0.1);
+        b.setResolution(0.1);
+        a.add(new Point(-0.3, -0.9));
+        b.add(new Point(-0.1, -0.3));
+        b.add(new Point(-0.1, -5));
+        b.add(new Point(700, 0));
+        b.add(new Point(700, 602));
+        for (int i = 0; i < 300; i++) {
+            a.add(new Point(0, 2 * i));
+            a.add(new Point(600, 2 * i + 600));
+            a.add(new Point(0, 2 * i));
+
+            b.add(new Point(601, 2 * i + 602));
+            b.add(new Point(1, 2 * i + 2));
+            b.add(new Point(601, 2 * i + 602));
+        }
+
+        // the snapped coordinates miss each other, the grid coordinates touch
+        assertFalse(Point.linesIntersect(a.x(0), a.y(0), a.x(1), a.y(1),
+                b.x(0), b.y(0), b.x(1), b.y(1)));
+        assertTrue(Point.gridLinesIntersect(a.gridX(0), a.gridY(0), a.gridX(1), a.gridY(1),
+                b.gridX(0), b.gridY(0), b.gridX(1), b.gridY(1)));
+
+        assertTrue(a.intersects(b));
+        assertTrue(b.intersects(a));
+    }
+
+    @Test
+    public void lineDistance() throws Exception {
+        // parallel, end to end, crossing and point-like lines
+        assertEquals(4, Point.linesDistanceSquared(0, 0, 10, 0, 3, 2, 7, 2), 0);
+        assertEquals(25, Point.linesDistanceSquared(0, 0, 1, 0, 4, 4, 9, 9), 0);
+        assertEquals(0, Point.linesDistanceSquared(0, 0, 2, 2, 0, 2, 2, 0), 0);
+        assertEquals(2, Point.linesDistanceSquared(0, 0, 0, 0, 1, 1, 1, 1), 0);
+    }
+
+    private static Path<Point> randomWalk(Random random, int length) {
+        Path<Point> path = new Path<>();
+        double x = random.nextDouble() * 100;
+        double y = random.nextDouble() * 100;
+
+        for (int i = 0; i < length; i++) {
+            x += random.nextGaussian() * 5;
+            y += random.nextGaussian() * 5;
+            path.add(new Point(x, y));
+        }
+
+        return path;
+    }
+}
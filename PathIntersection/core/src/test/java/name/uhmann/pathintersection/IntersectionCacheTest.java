@@ -0,0 +1,126 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class IntersectionCacheTest {
+
+    @Test
+    public void followsChangedPaths() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(13);
+        IntersectionCache cache = new IntersectionCache();
+        List<Path<Point>> paths = new ArrayList<>();
+        int intersecting = 0;
+
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(20);
+            if (paths.isEmpty() || action == 0) {
+                paths.add(randomPath(random));
+            } else if (action == 1) {
+                paths.remove(random.nextInt(paths.size()));
+            } else if (action == 2) {
+                paths.set(random.nextInt(paths.size()), randomPath(random));
+            } else {
+                // move, add or remove a point of one path like the PathSystem does
+                Path<Point> path = paths.get(random.nextInt(paths.size()));
+                if (action == 3)
+                    path.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+                else if (action == 4)
+                    path.remove(random.nextInt(path.length()));
+                else
+                    path.set(random.nextInt(path.length()), random.nextDouble() * 100,
+                            random.nextDouble() * 100);
+            }
+
+            boolean expected = false;
+            for (int i = 0; i < paths.size(); i++)
+                for (int j = i + 1; j < paths.size(); j++)
+                    expected |= paths.get(i).intersectsBruteForce(paths.get(j));
+
+            assertEquals("step " + step, expected,
+                    cache.anyIntersection(paths, step % 2 == 0 ? pool : null));
+            if (expected)
+                intersecting++;
+        }
+
+        // both outcomes have been checked
+        assertTrue(0 < intersecting && intersecting < 2000);
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void checksSkippedPairsLater() throws Exception {
+        IntersectionCache cache = new IntersectionCache();
+        List<Path<Point>> paths = new ArrayList<>();
+        paths.add(line(0, 0, 10, 10));
+        paths.add(line(0, 10, 10, 0));
+        paths.add(line(50, 50, 60, 60));
+        paths.add(line(50, 60, 60, 50));
+
+        // stops at the first pair, the second crossing pair isn't checked
+        assertTrue(cache.anyIntersection(paths, null));
+
+        // the first pair doesn't cross anymore, but the second one still does
+        paths.get(0).set(1, 0, 1);
+        assertTrue(cache.anyIntersection(paths, null));
+
+        paths.get(2).set(1, 50, 51);
+        assertFalse(cache.anyIntersection(paths, null));
+
+        // dropping a path drops its pairs
+        paths.get(3).set(0, 0, 5);
+        assertTrue(cache.anyIntersection(paths, null));
+        paths.remove(3);
+        assertFalse(cache.anyIntersection(paths, null));
+    }
+
+    @Test
+    public void versionCountsChanges() throws Exception {
+        Path<Point> path = new Path<>();
+        int version = path.getVersion();
+
+        path.add(new Point(0, 0));
+        path.add(new Point(1, 1));
+        assertEquals(version + 2, path.getVersion());
+
+        path.set(1, 2, 2);
+        path.setResolution(1);
+        path.remove(0);
+        assertEquals(version + 5, path.getVersion());
+
+        // the last point stays, so nothing changes
+        path.remove(0);
+        assertEquals(version + 5, path.getVersion());
+    }
+
+    private static Path<Point> line(double x1, double y1, double x2, double y2) {
+        Path<Point> path = new Path<>();
+        path.add(new Point(x1, y1));
+        path.add(new Point(x2, y2));
+        return path;
+    }
+
+    private static Path<Point> randomPath(Random random) {
+        Path<Point> path = new Path<>();
+        double x = random.nextDouble() * 100, y = random.nextDouble() * 100;
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            path.add(new Point(x, y));
+            x += random.nextDouble() * 20 - 10;
+            y += random.nextDouble() * 20 - 10;
+        }
+
+        // some paths are checked with their simplified versions first
+        if (random.nextInt(3) == 0)
+            path.setTolerance(random.nextDouble() * 5);
+
+        return path;
+    }
+}
@@ -0,0 +1,61 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntersectionMetricsTest {
+
+    @Test
+    public void countersRecordEvents() throws Exception {
+        IntersectionMetrics metrics = new IntersectionMetrics();
+        metrics.segmentPairTested();
+        metrics.segmentPairTested();
+        metrics.boundingBoxRejected();
+        metrics.queryFinished(100);
+
+        assertEquals(2, metrics.getSegmentPairTests());
+        assertEquals(1, metrics.getBoundingBoxRejections());
+        assertEquals(1, metrics.getQueries());
+        assertEquals(100, metrics.getQueryNanos());
+
+        metrics.reset();
+        assertEquals(0, metrics.getSegmentPairTests());
+    }
+
+    @Test
+    public void algorithmsRecordEvents() throws Exception {
+        IntersectionMetrics metrics = new IntersectionMetrics();
+        IntersectionMetrics previous = IntersectionMetrics.get();
+        IntersectionMetrics.install(metrics);
+
+        try {
+            // disjoint bounding boxes
+            assertFalse(Point.linesIntersect(0, 0, 10, 10, 20, 0, 30, 10));
+            assertEquals(recorded(1), metrics.getSegmentPairTests());
+            assertEquals(recorded(1), metrics.getBoundingBoxRejections());
+
+            // overlapping colinear lines
+            assertTrue(Point.linesIntersect(0, 0, 10, 10, 5, 5, 15, 15));
+            assertEquals(recorded(2), metrics.getSegmentPairTests());
+            assertEquals(recorded(1), metrics.getBoundingBoxRejections());
+            assertEquals(recorded(1), metrics.getColinearCases());
+
+            Path<Point> a = new Path<>();
+            a.add(new Point(0, 0));
+            a.add(new Point(10, 10));
+            assertFalse(a.intersects(new Path<Point>()));
+            assertEquals(recorded(1), metrics.getQueries());
+        } finally {
+            IntersectionMetrics.install(previous);
+        }
+    }
+
+    /**
+     * Get the count that the algorithms record for a number of events in this build. A build
+     * without metrics, the default, records nothing at all.
+     */
+    private static long recorded(long events) {
+        return IntersectionMetrics.ENABLED ? events : 0;
+    }
+}
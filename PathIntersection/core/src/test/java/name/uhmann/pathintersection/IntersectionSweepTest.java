@@ -0,0 +1,77 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IntersectionSweepTest {
+
+    @Test
+    public void reportsCrossingPoint() throws Exception {
+        Path<Point> a = new Path<>();
+        a.add(new Point(0, 0));
+        a.add(new Point(4, 4));
+        Path<Point> b = new Path<>();
+        b.add(new Point(0, 4));
+        b.add(new Point(4, 0));
+
+        final List<double[]> found = new ArrayList<>();
+        a.intersections(b, new IntersectionVisitor() {
+            @Override
+            public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                     double x, double y) {
+                found.add(new double[] { pathA, lineA, pathB, lineB, x, y });
+            }
+        });
+
+        assertEquals(1, found.size());
+        assertArrayEquals(new double[] { 0, 0, 1, 0, 2, 2 }, found.get(0), 0);
+    }
+
+    @Test
+    public void agreesWithBruteForce() throws Exception {
+        Random random = new Random(14);
+
+        for (int run = 0; run < 500; run++) {
+            // small integer grids produce lots of touching, colinear and vertical lines
+            boolean grid = run % 2 == 0;
+            List<Path<Point>> paths = new ArrayList<>();
+
+            for (int p = 0; p < 2 + random.nextInt(4); p++) {
+                Path<Point> path = new Path<>();
+                for (int i = 0; i < 1 + random.nextInt(12); i++)
+                    path.add(grid ? new Point(random.nextInt(6), random.nextInt(6)) :
+                            new Point(random.nextDouble() * 10, random.nextDouble() * 10));
+                paths.add(path);
+            }
+
+            Set<String> expected = new HashSet<>();
+            for (int a = 0; a < paths.size(); a++)
+                for (int b = a + 1; b < paths.size(); b++)
+                    for (int i = 0; i < paths.get(a).length() - 1; i++)
+                        for (int j = 0; j < paths.get(b).length() - 1; j++)
+                            if (Point.linesIntersect(paths.get(a).get(i), paths.get(a).get(i + 1),
+                                    paths.get(b).get(j), paths.get(b).get(j + 1)))
+                                expected.add(a + ":" + i + "-" + b + ":" + j);
+
+            final List<String> found = new ArrayList<>();
+            IntersectionSweep.intersections(paths, new IntersectionVisitor() {
+                @Override
+                public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                         double x, double y) {
+                    found.add(pathA + ":" + lineA + "-" + pathB + ":" + lineB);
+                }
+            });
+
+            // every pair exactly once
+            assertEquals(expected, new HashSet<>(found));
+            assertEquals(expected.size(), found.size());
+        }
+    }
+}
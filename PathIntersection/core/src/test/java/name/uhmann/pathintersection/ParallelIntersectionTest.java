@@ -0,0 +1,92 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelIntersectionTest {
+
+    @Test
+    public void agreesWithSequentialCheck() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(9);
+        int intersecting = 0;
+
+        for (int run = 0; run < 200; run++) {
+            List<Path<Point>> paths = new ArrayList<>();
+            int pathCount = 1 + random.nextInt(6);
+            for (int p = 0; p < pathCount; p++) {
+                Path<Point> path = new Path<>();
+                double x = random.nextDouble() * 100, y = random.nextDouble() * 100;
+                path.add(new Point(x, y));
+
+                // some paths are long enough to be split into several tasks
+                int length = random.nextInt(4) == 0 ? 10000 : 1 + random.nextInt(20);
+                for (int i = 0; i < length; i++) {
+                    x += random.nextDouble() * 2 - 1;
+                    y += random.nextDouble() * 2 - 1;
+                    path.add(new Point(x, y));
+                }
+                paths.add(path);
+            }
+
+            boolean expected = false;
+            for (int i = 0; i < paths.size(); i++)
+                for (int j = i + 1; j < paths.size(); j++)
+                    expected |= paths.get(i).intersects(paths.get(j));
+
+            assertEquals(expected, ParallelIntersection.anyIntersection(paths, pool));
+            if (expected)
+                intersecting++;
+        }
+
+        // both outcomes have been checked
+        assertTrue(0 < intersecting && intersecting < 200);
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void interleavedLongPathsAgreeWithSequentialCheck() throws Exception {
+        // Long interleaved teeth on a grid, whose boxes all overlap. The subtree tasks give up
+        // like the sequential walk does, and a line of each path only touches the other path
+        // on the grid.
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Path<Point> a = new Path<>();
+        Path<Point> b = new Path<>();
+        a.setResolution(0.1);
+        b.setResolution(0.1);
+        a.add(new Point(-0.3, -0.9));
+        b.add(new Point(-0.1, -0.3));
+        b.add(new Point(-0.1, -5));
+        b.add(new Point(7000, 0));
+        b.add(new Point(7000, 6002));
+        for (int i = 0; i < 2000; i++) {
+            a.add(new Point(0, 2 * i));
+            a.add(new Point(6000, 2 * i + 6000));
+            a.add(new Point(0, 2 * i));
+
+            b.add(new Point(6001, 2 * i + 6002));
+            b.add(new Point(1, 2 * i + 2));
+            b.add(new Point(6001, 2 * i + 6002));
+        }
+        List<Path<Point>> paths = new ArrayList<>();
+        paths.add(a);
+        paths.add(b);
+
+        assertTrue(a.intersects(b));
+        assertTrue(ParallelIntersection.anyIntersection(paths, pool));
+
+        // without the touching line of the first path
+        a.remove(0);
+        assertFalse(a.intersects(b));
+        assertFalse(ParallelIntersection.anyIntersection(paths, pool));
+
+        pool.shutdown();
+    }
+}
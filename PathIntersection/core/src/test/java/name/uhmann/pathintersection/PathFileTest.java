@@ -0,0 +1,76 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PathFileTest {
+
+    @Test
+    public void sameResultsAsPaths() throws Exception {
+        Random random = new Random(19);
+        List<Path<Point>> paths = new ArrayList<>();
+        PathIndex index = new PathIndex();
+
+        File file = File.createTempFile("paths", ".bin");
+        file.deleteOnExit();
+
+        PathFileWriter writer = new PathFileWriter(file);
+        for (int i = 0; i < 500; i++) {
+            Path<Point> path = new Path<>();
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+            // some paths without lines and some long enough to fill the write buffer
+            int length = i % 100 == 0 ? 5000 : random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                path.add(new Point(x, y));
+                x += random.nextDouble() * 60 - 30;
+                y += random.nextDouble() * 60 - 30;
+            }
+
+            assertEquals(i, writer.write(path));
+            paths.add(path);
+            index.add(path);
+        }
+        writer.close();
+
+        PathFile pathFile = PathFile.open(file);
+        assertEquals(paths.size(), pathFile.size());
+
+        for (int i = 0; i < paths.size(); i++) {
+            Polyline mapped = pathFile.get(i);
+            assertEquals(paths.get(i).length(), mapped.length());
+            for (int j = 0; j < mapped.length(); j++) {
+                assertEquals(paths.get(i).x(j), mapped.x(j), 0);
+                assertEquals(paths.get(i).y(j), mapped.y(j), 0);
+            }
+        }
+
+        for (int run = 0; run < 100; run++) {
+            int a = random.nextInt(paths.size()), b = random.nextInt(paths.size());
+            assertEquals(paths.get(a).intersects(paths.get(b)), pathFile.intersects(a, b));
+
+            Path<Point> probe = paths.get(random.nextInt(paths.size()));
+            assertTrue(Arrays.equals(index.intersectingPaths(probe),
+                    pathFile.intersectingPaths(probe)));
+
+            double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+            assertEquals(nearest(paths, x, y, 20), pathFile.nearest(x, y, 20));
+        }
+
+        pathFile.close();
+    }
+
+    private static long nearest(List<Path<Point>> paths, double x, double y, double radius) {
+        PointGrid grid = new PointGrid(radius);
+        for (Path<Point> path : paths)
+            grid.add(path);
+
+        return grid.nearest(x, y, radius);
+    }
+}
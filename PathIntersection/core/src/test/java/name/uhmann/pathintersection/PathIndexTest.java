@@ -0,0 +1,99 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PathIndexTest {
+
+    @Test
+    public void sameResultAsPairwiseCheck() throws Exception {
+        Random random = new Random(16);
+        PathIndex index = new PathIndex();
+        List<Path<Point>> paths = new ArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            Path<Point> path = randomPath(random);
+            paths.add(path);
+            assertEquals(i, index.add(path));
+        }
+
+        for (int run = 0; run < 200; run++) {
+            // change the stored paths in between queries
+            int id = random.nextInt(paths.size());
+            if (run % 3 == 0 && index.get(id) != null) {
+                index.remove(id);
+            } else if (run % 3 == 1 && index.get(id) != null) {
+                Path<Point> path = paths.get(id);
+                path.set(random.nextInt(path.length()), random.nextDouble() * 1000,
+                        random.nextDouble() * 1000);
+                index.update(id);
+            }
+
+            Path<Point> probe = randomPath(random);
+            int[] expected = new int[0];
+            for (int i = 0; i < paths.size(); i++)
+                if (index.get(i) != null && probe.intersects(paths.get(i))) {
+                    expected = Arrays.copyOf(expected, expected.length + 1);
+                    expected[expected.length - 1] = i;
+                }
+
+            assertArrayEquals("run " + run, expected, index.intersectingPaths(probe));
+            assertEquals("run " + run, expected.length > 0, index.intersectsAny(probe));
+        }
+    }
+
+    @Test
+    public void distancesSameAsPairwiseCheck() throws Exception {
+        Random random = new Random(23);
+
+        for (int run = 0; run < 50; run++) {
+            PathIndex index = new PathIndex();
+            List<Path<Point>> paths = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Path<Point> path = randomPath(random);
+                paths.add(path);
+                index.add(path);
+            }
+
+            double distance = random.nextDouble() * 50;
+            boolean anyExpected = false;
+            for (int i = 0; i < paths.size(); i++) {
+                boolean expected = false;
+                for (int j = 0; j < paths.size(); j++)
+                    if (j != i && paths.get(i).withinDistance(paths.get(j), distance))
+                        expected = true;
+
+                assertEquals("run " + run, expected, index.withinDistanceOfAny(i, distance));
+                anyExpected |= expected;
+            }
+            assertEquals("run " + run, anyExpected, index.anyWithinDistance(distance));
+        }
+    }
+
+    @Test
+    public void emptyIndex() throws Exception {
+        PathIndex index = new PathIndex();
+        Path<Point> probe = randomPath(new Random(1));
+
+        assertFalse(index.intersectsAny(probe));
+        assertEquals(0, index.intersectingPaths(probe).length);
+    }
+
+    private static Path<Point> randomPath(Random random) {
+        Path<Point> path = new Path<>();
+        double x = random.nextDouble() * 1000, y = random.nextDouble() * 1000;
+        for (int i = 1 + random.nextInt(20); i > 0; i--) {
+            path.add(new Point(x, y));
+            x += random.nextDouble() * 60 - 30;
+            y += random.nextDouble() * 60 - 30;
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,40 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class PathReaderTest {
+
+    @Test
+    public void readsOnePathPerLine() throws Exception {
+        PathReader reader = new PathReader(new StringReader(
+                "# comment\n0 0 1 1\n\n  2,3, 4.5 -6e1\n"));
+
+        Path<Point> path = reader.read();
+        assertEquals(2, path.length());
+        assertEquals(1, path.x(1), 0);
+        assertEquals(2, reader.getLineNumber());
+
+        path = reader.read();
+        assertEquals(2, path.length());
+        assertEquals(2, path.x(0), 0);
+        assertEquals(-60, path.y(1), 0);
+        assertEquals(4, reader.getLineNumber());
+
+        assertNull(reader.read());
+    }
+
+    @Test(expected = IOException.class)
+    public void oddNumberOfCoordinates() throws Exception {
+        new PathReader(new StringReader("0 0 1")).read();
+    }
+
+    @Test(expected = IOException.class)
+    public void notANumber() throws Exception {
+        new PathReader(new StringReader("0 0 x 1")).read();
+    }
+}
@@ -0,0 +1,192 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PathTest {
+
+    @Test
+    public void packedCoordinatesFollowPoints() throws Exception {
+        Path<Point> path = new Path<>();
+        for (int i = 0; i < 20; i++)
+            path.add(new Point(i, 2 * i));
+
+        path.remove(0);
+        path.remove(path.get(5));
+        path.set(3, -1, -2);
+
+        assertEquals(18, path.length());
+        for (int i = 0; i < path.length(); i++) {
+            assertEquals(path.get(i).getX(), path.x(i), 0);
+            assertEquals(path.get(i).getY(), path.y(i), 0);
+        }
+
+        assertEquals(-1, path.get(3).getX(), 0);
+        assertEquals(-2, path.y(3), 0);
+    }
+
+    @Test
+    public void lastPointIsNotRemoved() throws Exception {
+        Path<Point> path = new Path<>();
+        path.add(new Point(1, 2));
+        path.remove(0);
+
+        assertEquals(1, path.length());
+        assertEquals(1, path.x(0), 0);
+    }
+
+    @Test
+    public void selfIntersectionsFollowMovedPoints() throws Exception {
+        // a coarse grid produces lots of touching, colinear and zero-length lines
+        Random random = new Random(42);
+
+        for (int run = 0; run < 500; run++) {
+            Path<Point> path = new Path<>();
+            for (int i = 2 + random.nextInt(10); i > 0; i--)
+                path.add(new Point(random.nextInt(5), random.nextInt(5)));
+
+            int count = countSelfIntersections(path);
+            for (int move = 0; move < 10; move++) {
+                int index = random.nextInt(path.length());
+                count -= path.selfIntersectionsAround(index);
+                path.set(index, random.nextInt(5), random.nextInt(5));
+                count += path.selfIntersectionsAround(index);
+
+                final int[] visited = new int[1];
+                path.selfIntersections(new IntersectionVisitor() {
+                    @Override
+                    public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                             double x, double y) {
+                        visited[0]++;
+                    }
+                });
+
+                assertEquals("run " + run, countSelfIntersections(path), count);
+                assertEquals("run " + run, count, visited[0]);
+                assertEquals("run " + run, count > 0, path.selfIntersects());
+            }
+        }
+    }
+
+    @Test
+    public void pointsAreSnappedToGrid() throws Exception {
+        Path<Point> path = new Path<>();
+        path.add(new Point(0.26, -0.74));
+        path.setResolution(0.5);
+        path.add(new Point(1.1, 2.9));
+        path.set(0, 0.76, 0.2);
+
+        assertEquals(2, path.gridX(0));
+        assertEquals(0, path.gridY(0));
+        assertEquals(1, path.x(0), 0);
+        assertEquals(0, path.get(0).getY(), 0);
+        assertEquals(2, path.gridX(1));
+        assertEquals(6, path.gridY(1));
+        assertEquals(3, path.get(1).getY(), 0);
+    }
+
+    @Test
+    public void gridIntersectionsMatchSnappedCoordinates() throws Exception {
+        Random random = new Random(5);
+
+        for (int run = 0; run < 500; run++) {
+            Path<Point> a = randomPath(random);
+            Path<Point> b = randomPath(random);
+            a.setResolution(0.25);
+            b.setResolution(0.25);
+
+            // the same coordinates without a grid take the floating point route
+            Path<Point> plainA = copy(a);
+            Path<Point> plainB = copy(b);
+
+            assertEquals("run " + run, plainA.intersects(plainB), a.intersects(b));
+        }
+    }
+
+    @Test
+    public void gridSelfIntersectionsMatchGridCoordinates() throws Exception {
+        // the last line ends on the first one on the grid, but misses it in snapped coordinates
+        Path<Point> path = new Path<>();
+        path.setResolution(0.1);
+        path.add(new Point(-0.3, -0.9));
+        path.add(new Point(0, 0));
+        path.add(new Point(5, 0));
+        path.add(new Point(5, -5));
+        path.add(new Point(-0.1, -5));
+        path.add(new Point(-0.1, -0.3));
+
+        assertFalse(Point.linesIntersect(path.x(0), path.y(0), path.x(1), path.y(1),
+                path.x(4), path.y(4), path.x(5), path.y(5)));
+        assertFalse(copy(path).selfIntersects());
+
+        assertTrue(path.selfIntersects());
+        assertTrue(Path.linesSelfIntersect(path, 0, 4));
+        assertEquals(1, path.selfIntersectionsAround(5));
+
+        final double[] visited = new double[3];
+        path.selfIntersections(new IntersectionVisitor() {
+            @Override
+            public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                     double x, double y) {
+                visited[0]++;
+                visited[1] = x;
+                visited[2] = y;
+            }
+        });
+        assertEquals(1, visited[0], 0);
+        assertEquals(-0.1, visited[1], 1e-12);
+        assertEquals(-0.3, visited[2], 1e-12);
+    }
+
+    @Test
+    public void pointsOffTheGridAreRejected() throws Exception {
+        Path<Point> path = new Path<>();
+        path.add(new Point(0, 0));
+        path.add(new Point(1e9, 0));
+
+        try {
+            path.setResolution(0.1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, path.getResolution(), 0);
+        assertEquals(1e9, path.x(1), 0);
+
+        path.setResolution(1);
+        try {
+            path.add(new Point(Double.NaN, 0));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(2, path.length());
+    }
+
+    private static Path<Point> randomPath(Random random) {
+        Path<Point> path = new Path<>();
+        for (int i = 2 + random.nextInt(10); i > 0; i--)
+            path.add(new Point(random.nextDouble() * 2, random.nextDouble() * 2));
+
+        return path;
+    }
+
+    private static Path<Point> copy(Polyline polyline) {
+        Path<Point> path = new Path<>();
+        for (int i = 0; i < polyline.length(); i++)
+            path.add(new Point(polyline.x(i), polyline.y(i)));
+
+        return path;
+    }
+
+    private static int countSelfIntersections(Polyline path) {
+        int count = 0;
+        for (int i = 0; i < path.length() - 1; i++)
+            for (int j = i + 1; j < path.length() - 1; j++)
+                if (Path.linesSelfIntersect(path, i, j))
+                    count++;
+
+        return count;
+    }
+}
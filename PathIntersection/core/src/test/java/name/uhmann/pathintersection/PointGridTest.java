@@ -0,0 +1,67 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PointGridTest {
+
+    @Test
+    public void nearestSameAsBruteForceWhileMoving() throws Exception {
+        Random random = new Random(13);
+        PointGrid grid = new PointGrid(4);
+        List<Path<Point>> paths = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            Path<Point> path = new Path<>();
+            for (int j = 0; j < 200; j++)
+                path.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+
+            paths.add(path);
+            grid.add(path);
+        }
+
+        for (int query = 0; query < 1000; query++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            double radius = random.nextDouble() * 10;
+
+            long expected = -1;
+            double minDistance = radius;
+            for (int id = 0; id < paths.size(); id++)
+                for (int index = 0; index < paths.get(id).length(); index++) {
+                    double distance = Math.hypot(paths.get(id).x(index) - x,
+                            paths.get(id).y(index) - y);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        expected = ((long)id << 32) | index;
+                    }
+                }
+
+            assertEquals(expected, grid.nearest(x, y, radius));
+
+            // move a random point
+            int id = random.nextInt(paths.size());
+            int index = random.nextInt(paths.get(id).length());
+            grid.remove(id, index);
+            paths.get(id).set(index, random.nextDouble() * 100, random.nextDouble() * 100);
+            grid.insert(id, index);
+        }
+    }
+
+    @Test
+    public void nothingWithinRadius() throws Exception {
+        Path<Point> path = new Path<>();
+        path.add(new Point(10, 10));
+
+        PointGrid grid = new PointGrid(1);
+        grid.add(path);
+
+        assertEquals(-1, grid.nearest(20, 20, 5));
+        assertEquals(0, PointGrid.indexOf(grid.nearest(12, 12, 5)));
+    }
+}
@@ -0,0 +1,88 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by Tobias on 05.02.2017.
+ */
+public class PointTest {
+    @Test
+    public void doIntersect() throws Exception {
+        // crossing
+        assertTrue(Point.linesIntersect(p(0, 0), p(10, 10), p(0, 10), p(10, 0)));
+        // parallel
+        assertFalse(Point.linesIntersect(p(1, 0), p(10, 1), p(2, 5), p(10, 6)));
+        // vertical lines
+        assertTrue(Point.linesIntersect(p(5, 0), p(5, 10), p(0, 5), p(10, 5)));
+        assertFalse(Point.linesIntersect(p(0, 0), p(0, 10), p(1, 0), p(1, 10)));
+        assertFalse(Point.linesIntersect(p(0, 0), p(10, 1), p(0, 5), p(10, 6)));
+        // touching
+        assertTrue(Point.linesIntersect(p(0, 0), p(10, 0), p(5, 0), p(5, 10)));
+        assertTrue(Point.linesIntersect(p(0, 0), p(10, 10), p(10, 10), p(20, 0)));
+        // colinear, overlapping or beyond each other
+        assertTrue(Point.linesIntersect(p(0, 0), p(10, 10), p(5, 5), p(20, 20)));
+        assertFalse(Point.linesIntersect(p(0, 0), p(10, 10), p(11, 11), p(20, 20)));
+        assertTrue(Point.linesIntersect(p(0, 0), p(0, 10), p(0, 10), p(0, 20)));
+    }
+
+    @Test
+    public void orientation() throws Exception {
+        assertEquals(Point.COUNTERCLOCKWISE, Point.orientation(0, 0, 1, 0, 0, 1));
+        assertEquals(Point.CLOCKWISE, Point.orientation(0, 0, 1, 0, 0, -1));
+        assertEquals(Point.COLINEAR, Point.orientation(0, 0, 1, 1, 2, 2));
+        assertEquals(Point.COLINEAR, Point.orientation(3, 0, 3, 7, 3, -2));
+    }
+
+    @Test
+    public void orientationOfNearlyColinearPoints() throws Exception {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 10000; i++) {
+            // points on a line y = x, moved by a few units in the last place
+            double px = 0.5 + Math.ulp(0.5) * random.nextInt(5);
+            double py = 0.5 + Math.ulp(0.5) * random.nextInt(5);
+            double qx = 12 + Math.ulp(12.0) * random.nextInt(5);
+            double qy = 12 + Math.ulp(12.0) * random.nextInt(5);
+            double tx = 24 + Math.ulp(24.0) * random.nextInt(5);
+            double ty = 24 + Math.ulp(24.0) * random.nextInt(5);
+
+            BigDecimal exact = new BigDecimal(qx).subtract(new BigDecimal(px))
+                    .multiply(new BigDecimal(ty).subtract(new BigDecimal(py)))
+                    .subtract(new BigDecimal(qy).subtract(new BigDecimal(py))
+                            .multiply(new BigDecimal(tx).subtract(new BigDecimal(px))));
+
+            assertEquals(exact.signum(), Point.orientation(px, py, qx, qy, tx, ty));
+        }
+    }
+
+    @Test
+    public void gridLinesIntersectAgreesWithLinesIntersect() throws Exception {
+        Random random = new Random(23);
+
+        for (int i = 0; i < 100000; i++) {
+            // small coordinates for touching and colinear lines, large ones near the limit
+            long range = i % 2 == 0 ? 5 : Point.MAX_GRID;
+            long[] c = new long[8];
+            for (int j = 0; j < c.length; j++)
+                c[j] = range - (long) (random.nextDouble() * (2 * range + 1));
+
+            assertEquals(Point.linesIntersect(p(c[0], c[1]), p(c[2], c[3]), p(c[4], c[5]),
+                    p(c[6], c[7])), Point.gridLinesIntersect(c[0], c[1], c[2], c[3], c[4], c[5],
+                    c[6], c[7]));
+        }
+
+        long m = Point.MAX_GRID;
+        assertTrue(Point.gridLinesIntersect(-m, -m, m, m, -m, m, m, -m));
+        assertTrue(Point.gridLinesIntersect(-m, -m, m, m, m, m, m, -m));
+        assertFalse(Point.gridLinesIntersect(-m, -m, m, m - 1, -m, -m + 1, m, m));
+    }
+
+    private static Point p(double x, double y) {
+        return new Point(x, y);
+    }
+}
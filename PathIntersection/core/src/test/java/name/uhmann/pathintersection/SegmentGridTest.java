@@ -0,0 +1,104 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SegmentGridTest {
+
+    @Test
+    public void countsSameAsBruteForceWhileMoving() throws Exception {
+        Random random = new Random(11);
+
+        for (int run = 0; run < 50; run++) {
+            SegmentGrid grid = new SegmentGrid();
+            List<Path<Point>> paths = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                Path<Point> path = new Path<>();
+                for (int j = 2 + random.nextInt(20); j > 0; j--)
+                    path.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+
+                paths.add(path);
+                grid.add(path);
+            }
+
+            grid.rebuild();
+            assertEquals(countBruteForce(paths), grid.countIntersections());
+
+            for (int move = 0; move < 20; move++) {
+                int id = random.nextInt(paths.size());
+                Path<Point> path = paths.get(id);
+                int index = random.nextInt(path.length());
+
+                int first = Math.max(index - 1, 0);
+                int last = Math.min(index, path.length() - 2);
+                for (int line = first; line <= last; line++)
+                    grid.remove(id, line);
+
+                path.set(index, random.nextDouble() * 100, random.nextDouble() * 100);
+
+                for (int line = first; line <= last; line++)
+                    grid.insert(id, line);
+
+                assertEquals(countBruteForce(paths), grid.countIntersections());
+            }
+        }
+    }
+
+    @Test
+    public void rebuildsForLongLines() throws Exception {
+        Random random = new Random(17);
+        SegmentGrid grid = new SegmentGrid();
+        List<Path<Point>> paths = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            Path<Point> path = new Path<>();
+            for (int j = 0; j < 50; j++)
+                path.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+
+            paths.add(path);
+            grid.add(path);
+        }
+        grid.rebuild();
+
+        // drag the middle point of a path ever farther away, without rebuilding in between
+        Path<Point> path = paths.get(1);
+        for (double distance = 1000; distance <= 1e9; distance *= 10) {
+            grid.remove(1, 24);
+            grid.remove(1, 25);
+            path.set(25, distance, -distance);
+            grid.insert(1, 24);
+            grid.insert(1, 25);
+
+            assertEquals(countBruteForce(paths), grid.countIntersections());
+        }
+
+        // long lines of a new polyline
+        Path<Point> crossing = new Path<>();
+        crossing.add(new Point(-1e9, 50));
+        crossing.add(new Point(1e9, 50));
+        paths.add(crossing);
+        grid.add(crossing);
+
+        assertEquals(countBruteForce(paths), grid.countIntersections());
+    }
+
+    private static int countBruteForce(List<Path<Point>> paths) {
+        int count = 0;
+
+        for (int a = 0; a < paths.size(); a++)
+            for (int b = a + 1; b < paths.size(); b++)
+                for (int i = 0; i < paths.get(a).length() - 1; i++)
+                    for (int j = 0; j < paths.get(b).length() - 1; j++)
+                        if (Point.linesIntersect(paths.get(a).get(i), paths.get(a).get(i + 1),
+                                paths.get(b).get(j), paths.get(b).get(j + 1)))
+                            count++;
+
+        return count;
+    }
+}
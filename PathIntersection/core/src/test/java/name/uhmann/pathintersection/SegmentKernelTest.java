@@ -0,0 +1,43 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SegmentKernelTest {
+
+    @Test
+    public void hitMaskMatchesLinesIntersect() throws Exception {
+        Random random = new Random(3);
+        SegmentKernel kernel = SegmentKernel.get();
+
+        for (int run = 0; run < 1000; run++) {
+            double[] xs = new double[SegmentKernel.MAX_LINES + 1];
+            double[] ys = new double[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = random.nextInt(5);
+                ys[i] = random.nextInt(5);
+            }
+
+            double px = random.nextInt(5), py = random.nextInt(5);
+            double qx = random.nextInt(5), qy = random.nextInt(5);
+            int from = random.nextInt(xs.length - 1);
+            int to = from + 1 + random.nextInt(xs.length - 1 - from);
+
+            long expected = 0;
+            for (int i = from; i < to; i++)
+                if (Point.linesIntersect(p(xs[i], ys[i]), p(xs[i + 1], ys[i + 1]), p(px, py),
+                        p(qx, qy)))
+                    expected |= 1L << (i - from);
+
+            assertEquals("run " + run, expected,
+                    kernel.intersections(px, py, qx, qy, xs, ys, from, to));
+        }
+    }
+
+    private static Point p(double x, double y) {
+        return new Point(x, y);
+    }
+}
@@ -0,0 +1,102 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SimplifiedPathTest {
+
+    @Test
+    public void originalStaysWithinErrorBound() throws Exception {
+        Random random = new Random(22);
+        Path<Point> path = track(random, 2000);
+        SimplifiedPath simplified = new SimplifiedPath(path, 0.5);
+
+        assertTrue(simplified.length() < path.length() / 4);
+        assertTrue(simplified.getError() <= 0.5 * (1 + 1e-9));
+
+        // every original point lies within the error of the simplified line replacing it
+        for (int line = 0; line < simplified.length() - 1; line++)
+            for (int i = simplified.originalIndex(line); i <= simplified.originalIndex(line + 1);
+                 i++)
+                assertTrue(Point.linesDistanceSquared(path.x(i), path.y(i), path.x(i), path.y(i),
+                        simplified.x(line), simplified.y(line),
+                        simplified.x(line + 1), simplified.y(line + 1)) <=
+                        simplified.getError() * simplified.getError());
+    }
+
+    @Test
+    public void sameResultAsFullResolution() throws Exception {
+        Random random = new Random(22);
+        int intersecting = 0;
+
+        for (int run = 0; run < 300; run++) {
+            Path<Point> a = track(random, 2 + random.nextInt(500));
+            Path<Point> b = track(random, 2 + random.nextInt(500));
+            boolean expected = a.intersects(b);
+
+            a.setTolerance(random.nextDouble() * 3);
+            b.setTolerance(random.nextInt(2) * random.nextDouble() * 3);
+            assertEquals("run " + run, expected, a.intersects(b));
+            assertEquals("run " + run, expected, b.intersects(a));
+
+            // edits drop the simplified version
+            a.set(0, b.x(0), b.y(0));
+            assertTrue(a.intersects(b));
+
+            if (expected)
+                intersecting++;
+        }
+
+        // both outcomes have been checked
+        assertTrue(0 < intersecting && intersecting < 300);
+    }
+
+    @Test
+    public void interleavedTracksAreCheckedAsWhole() throws Exception {
+        // long parallel teeth whose simplified lines all come close to each other
+        Path<Point> a = new Path<>();
+        Path<Point> b = new Path<>();
+        for (int i = 0; i < 2000; i++) {
+            a.add(new Point(0, 2 * i));
+            a.add(new Point(600, 2 * i + 600));
+            a.add(new Point(0, 2 * i));
+
+            b.add(new Point(601, 2 * i + 602));
+            b.add(new Point(1, 2 * i + 2));
+            b.add(new Point(601, 2 * i + 602));
+        }
+
+        for (double tolerance : new double[] {0.1, 1, 100}) {
+            a.setTolerance(tolerance);
+            b.setTolerance(tolerance);
+            assertFalse(a.intersects(b));
+
+            // one tooth of the second path reaches over the first path's spine
+            b.set(301, -1, 2 * 100 + 2);
+            assertTrue(a.intersects(b));
+            b.set(301, 1, 2 * 100 + 2);
+        }
+    }
+
+    /**
+     * A densely sampled track that mostly goes straight and turns now and then.
+     */
+    private static Path<Point> track(Random random, int length) {
+        Path<Point> path = new Path<>();
+        double x = random.nextDouble() * 200, y = random.nextDouble() * 200;
+        double angle = random.nextDouble() * 2 * Math.PI;
+
+        for (int i = 0; i < length; i++) {
+            path.add(new Point(x, y));
+            if (random.nextInt(50) == 0)
+                angle += random.nextGaussian();
+            x += Math.cos(angle) + random.nextGaussian() * 0.05;
+            y += Math.sin(angle) + random.nextGaussian() * 0.05;
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,132 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SweepLineTest {
+
+    @Test
+    public void crossingPaths() throws Exception {
+        Path<Point> a = path(10, 20, 80, 15, 90, 30, 70, 35);
+        Path<Point> b = path(20, 40, 40, 10, 75, 60);
+
+        assertTrue(SweepLine.anyIntersection(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void disjointPaths() throws Exception {
+        Path<Point> a = path(0, 0, 10, 1, 20, 0, 30, 1);
+        Path<Point> b = path(1, 5, 11, 6, 21, 5, 31, 6);
+
+        assertFalse(SweepLine.anyIntersection(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void touchingPaths() throws Exception {
+        // endpoint of b lies on a line of a
+        Path<Point> a = path(0, 0, 10, 10, 20, 0);
+        Path<Point> b = path(5, 10, 5, 5);
+
+        assertTrue(SweepLine.anyIntersection(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void sharedEndpoint() throws Exception {
+        Path<Point> a = path(0, 0, 10, 10);
+        Path<Point> b = path(10, 10, 20, 0);
+
+        assertTrue(SweepLine.anyIntersection(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void selfIntersectingPathDoesNotCount() throws Exception {
+        Path<Point> a = path(0, 0, 10, 10, 10, 0, 0, 10);
+        Path<Point> b = path(20, 0, 30, 10);
+
+        assertFalse(SweepLine.anyIntersection(Arrays.asList(a, b)));
+    }
+
+    @Test
+    public void sameResultAsBruteForce() throws Exception {
+        Random random = new Random(42);
+
+        for (int run = 0; run < 500; run++) {
+            List<Path<Point>> paths = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+                paths.add(randomPath(random, 2 + random.nextInt(8)));
+
+            assertEquals("run " + run, SweepLine.anyIntersectionBruteForce(paths),
+                    SweepLine.anyIntersection(paths));
+        }
+    }
+
+    @Test
+    public void sameResultAsBruteForceOnGrid() throws Exception {
+        // a coarse grid produces lots of touching, colinear and vertical lines
+        Random random = new Random(42);
+
+        for (int run = 0; run < 2000; run++) {
+            List<Path<Point>> paths = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Path<Point> path = new Path<>();
+                for (int j = 2 + random.nextInt(6); j > 0; j--)
+                    path.add(new Point(random.nextInt(6), random.nextInt(6)));
+                paths.add(path);
+            }
+
+            assertEquals("run " + run, SweepLine.anyIntersectionBruteForce(paths),
+                    SweepLine.anyIntersection(paths));
+        }
+    }
+
+    @Test
+    public void selfCrossingTracksKeepSweeping() throws Exception {
+        // random walks cross themselves many times before they meet each other, if at all
+        Random random = new Random(17);
+        int intersecting = 0;
+
+        for (int run = 0; run < 200; run++) {
+            List<Path<Point>> paths = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Path<Point> path = new Path<>();
+                double x = random.nextDouble() * 60, y = random.nextDouble() * 60;
+                for (int j = 0; j < 200; j++) {
+                    path.add(new Point(x, y));
+                    x += random.nextDouble() * 6 - 3;
+                    y += random.nextDouble() * 6 - 3;
+                }
+                paths.add(path);
+            }
+
+            boolean expected = SweepLine.anyIntersectionBruteForce(paths);
+            assertEquals("run " + run, expected, SweepLine.anyIntersection(paths));
+            if (expected)
+                intersecting++;
+        }
+
+        // both outcomes have been checked
+        assertTrue(0 < intersecting && intersecting < 200);
+    }
+
+    private static Path<Point> randomPath(Random random, int length) {
+        Path<Point> path = new Path<>();
+        for (int i = 0; i < length; i++)
+            path.add(new Point(random.nextDouble() * 100, random.nextDouble() * 100));
+
+        return path;
+    }
+
+    private static Path<Point> path(double... coordinates) {
+        Path<Point> path = new Path<>();
+        for (int i = 0; i < coordinates.length; i += 2)
+            path.add(new Point(coordinates[i], coordinates[i + 1]));
+
+        return path;
+    }
+}
@@ -0,0 +1,99 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class TiledIntersectionTest {
+
+    @Test
+    public void sameResultAsSweep() throws Exception {
+        Random random = new Random(20);
+        List<Path<Point>> paths = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            Path<Point> path = new Path<>();
+            double x = random.nextInt(1000), y = random.nextInt(1000);
+            for (int j = random.nextInt(40); j > 0; j--) {
+                path.add(new Point(x, y));
+                // whole numbers produce lines that touch, overlap and end on tile borders
+                x += random.nextInt(61) - 30;
+                y += random.nextInt(61) - 30;
+            }
+            paths.add(path);
+        }
+
+        // a star of lines through a single point can't be split into smaller tiles
+        for (int i = 0; i < 50; i++)
+            paths.add(path(500 - i, 0, 500 + i, 1000));
+
+        assertEquals(pairs(paths), tiledPairs(paths, 64));
+        assertEquals(pairs(paths), tiledPairs(paths, 1 << 20));
+    }
+
+    @Test
+    public void emptyFile() throws Exception {
+        List<Path<Point>> paths = new ArrayList<>();
+        paths.add(path(1, 1));
+
+        assertTrue(tiledPairs(paths, 64).isEmpty());
+    }
+
+    private static TreeSet<String> pairs(List<Path<Point>> paths) {
+        final TreeSet<String> pairs = new TreeSet<>();
+        IntersectionSweep.intersections(paths, new IntersectionVisitor() {
+            @Override
+            public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                     double x, double y) {
+                pairs.add(pathA + ":" + lineA + " " + pathB + ":" + lineB);
+            }
+        });
+
+        return pairs;
+    }
+
+    private static TreeSet<String> tiledPairs(List<Path<Point>> paths, int linesPerTile)
+            throws Exception {
+        File file = File.createTempFile("paths", ".bin");
+        file.deleteOnExit();
+
+        PathFileWriter writer = new PathFileWriter(file);
+        for (Path<Point> path : paths)
+            writer.write(path);
+        writer.close();
+
+        File directory = file.getParentFile();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        final TreeSet<String> pairs = new TreeSet<>();
+
+        try (PathFile pathFile = PathFile.open(file)) {
+            new TiledIntersection(directory, linesPerTile, pool).intersections(pathFile,
+                    new IntersectionVisitor() {
+                        @Override
+                        public void intersection(int pathA, int lineA, int pathB, int lineB,
+                                                 double x, double y) {
+                            // every pair is reported once
+                            assertTrue(pairs.add(pathA + ":" + lineA + " " + pathB + ":" + lineB));
+                        }
+                    });
+        }
+        pool.shutdown();
+
+        return pairs;
+    }
+
+    private static Path<Point> path(double... coordinates) {
+        Path<Point> path = new Path<>();
+        for (int i = 0; i < coordinates.length; i += 2)
+            path.add(new Point(coordinates[i], coordinates[i + 1]));
+
+        return path;
+    }
+}
@@ -0,0 +1,168 @@
+package name.uhmann.pathintersection;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@code VectorSegmentKernel} tests one line against as many lines at once as the CPU's vector
+ * registers hold doubles, with the Vector API. It is loaded by {@link SegmentKernel#get()}
+ * when this module is on the class path and the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}.
+ *
+ * Each lane runs the same tests as {@link Point#linesIntersect(Point, Point, Point, Point)}:
+ * the bounding box comparison and the four orientations in plain double arithmetic, with the
+ * same error bound. Lanes whose orientations are all certain and not colinear are decided right
+ * away. The few others, nearly colinear, touching or not a number, are passed on to the scalar
+ * test with its exact arithmetic, so the results are exactly the same. Lines at the end of a
+ * block that don't fill a whole vector are tested by the scalar kernel.
+ *
+ * The kernel records the same {@link IntersectionMetrics} as the scalar test: every line is a
+ * tested pair, and the lines of a vector that fail the box comparison are rejections.
+ */
+public class VectorSegmentKernel extends SegmentKernel.Scalar {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // same bound as the fast test of Point.orientation()
+    private static final double ORIENTATION_ERROR_BOUND = (3.0 + 16.0 * 0x1p-53) * 0x1p-53;
+
+    /**
+     * Create the kernel.
+     *
+     * @throws UnsupportedOperationException If the CPU has no vector registers for doubles, so
+     *                                       that the scalar kernel would be faster.
+     */
+    public VectorSegmentKernel() {
+        if (SPECIES.length() < 2)
+            throw new UnsupportedOperationException("no vectors of doubles");
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public long intersections(double px, double py, double qx, double qy,
+                              double[] xs, double[] ys, int from, int to) {
+        int lanes = SPECIES.length();
+        double minX = Math.min(px, qx), minY = Math.min(py, qy);
+        double maxX = Math.max(px, qx), maxY = Math.max(py, qy);
+        long hits = 0;
+
+        // The steps are separate methods that only pass numbers and arrays, so that the JIT
+        // compiles each of them with its vectors in registers. Most vectors end after the first.
+        int i = from;
+        for (; i + lanes <= to; i += lanes) {
+            long candidates = overlapping(minX, minY, maxX, maxY, xs, ys, i);
+            if (IntersectionMetrics.ENABLED)
+                recordRejections(lanes - Long.bitCount(candidates));
+            if (candidates != 0)
+                hits |= crossing(px, py, qx, qy, xs, ys, i, candidates) << (i - from);
+        }
+
+        // the lines that don't fill a whole vector anymore
+        if (i < to)
+            hits |= super.intersections(px, py, qx, qy, xs, ys, i, to) << (i - from);
+
+        return hits;
+    }
+
+    /**
+     * Get the lines of a vector whose bounding boxes overlap the box of the query's line.
+     *
+     * @return Lane mask of the overlapping lines.
+     */
+    private static long overlapping(double minX, double minY, double maxX, double maxY,
+                                    double[] xs, double[] ys, int i) {
+        DoubleVector ax = DoubleVector.fromArray(SPECIES, xs, i);
+        DoubleVector ay = DoubleVector.fromArray(SPECIES, ys, i);
+        DoubleVector bx = DoubleVector.fromArray(SPECIES, xs, i + 1);
+        DoubleVector by = DoubleVector.fromArray(SPECIES, ys, i + 1);
+
+        // Both endpoints being beyond the box is the same as their maximum or minimum being
+        // beyond it, also for coordinates that are not a number, but is cheaper to compute.
+        VectorMask<Double> rejected = ax.lt(minX).and(bx.lt(minX))
+                .or(ax.compare(VectorOperators.GT, maxX).and(bx.compare(VectorOperators.GT, maxX)))
+                .or(ay.lt(minY).and(by.lt(minY)))
+                .or(ay.compare(VectorOperators.GT, maxY).and(by.compare(VectorOperators.GT, maxY)));
+
+        return rejected.not().toLong();
+    }
+
+    /**
+     * Test the candidate lines of a vector against the query's line, as
+     * {@link Point#linesIntersect(Point, Point, Point, Point)} does.
+     *
+     * @return Lane mask of the intersecting lines.
+     */
+    private static long crossing(double px, double py, double qx, double qy,
+                                 double[] xs, double[] ys, int i, long candidates) {
+        DoubleVector ax = DoubleVector.fromArray(SPECIES, xs, i);
+        DoubleVector ay = DoubleVector.fromArray(SPECIES, ys, i);
+        DoubleVector bx = DoubleVector.fromArray(SPECIES, xs, i + 1);
+        DoubleVector by = DoubleVector.fromArray(SPECIES, ys, i + 1);
+
+        // orientations of p and q relative to the lines a - b
+        DoubleVector dx = bx.sub(ax), dy = by.sub(ay);
+        DoubleVector leftP = dx.mul(ay.neg().add(py)), rightP = dy.mul(ax.neg().add(px));
+        DoubleVector leftQ = dx.mul(ay.neg().add(qy)), rightQ = dy.mul(ax.neg().add(qx));
+        DoubleVector detP = leftP.sub(rightP), detQ = leftQ.sub(rightQ);
+
+        // orientations of a and b relative to the line p - q
+        double ex = qx - px, ey = qy - py;
+        DoubleVector leftA = ay.sub(py).mul(ex), rightA = ax.sub(px).mul(ey);
+        DoubleVector leftB = by.sub(py).mul(ex), rightB = bx.sub(px).mul(ey);
+        DoubleVector detA = leftA.sub(rightA), detB = leftB.sub(rightB);
+
+        long certain = candidates
+                & isCertain(detP, leftP, rightP).and(isCertain(detQ, leftQ, rightQ))
+                .and(isCertain(detA, leftA, rightA)).and(isCertain(detB, leftB, rightB)).toLong();
+
+        // the uncertain lanes are recorded by the scalar test
+        if (IntersectionMetrics.ENABLED)
+            for (int lane = Long.bitCount(certain); lane > 0; lane--)
+                IntersectionMetrics.get().segmentPairTested();
+
+        // with all four orientations certain and none colinear, the lines intersect if and only
+        // if the endpoints of each line are on opposite sides of the other one
+        long hits = certain
+                & (detP.compare(VectorOperators.GT, 0).toLong()
+                        ^ detQ.compare(VectorOperators.GT, 0).toLong())
+                & (detA.compare(VectorOperators.GT, 0).toLong()
+                        ^ detB.compare(VectorOperators.GT, 0).toLong());
+
+        for (long uncertain = candidates & ~certain; uncertain != 0; uncertain &= uncertain - 1) {
+            int lane = Long.numberOfTrailingZeros(uncertain);
+            int line = i + lane;
+            if (Point.linesIntersect(xs[line], ys[line], xs[line + 1], ys[line + 1],
+                    px, py, qx, qy))
+                hits |= 1L << lane;
+        }
+
+        return hits;
+    }
+
+    /**
+     * Record lines that were rejected by their bounding boxes, which are also tested pairs.
+     */
+    private static void recordRejections(int count) {
+        IntersectionMetrics metrics = IntersectionMetrics.get();
+        for (int k = 0; k < count; k++) {
+            metrics.segmentPairTested();
+            metrics.boundingBoxRejected();
+        }
+    }
+
+    /**
+     * Get the lanes whose determinant is far enough from 0 for its sign to be certain. Lanes
+     * that are not a number are never certain.
+     */
+    private static VectorMask<Double> isCertain(DoubleVector det, DoubleVector left,
+                                                DoubleVector right) {
+        DoubleVector errorBound = left.abs().add(right.abs()).mul(ORIENTATION_ERROR_BOUND);
+        return det.abs().compare(VectorOperators.GT, errorBound);
+    }
+}
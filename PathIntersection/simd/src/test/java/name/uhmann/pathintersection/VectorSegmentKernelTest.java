@@ -0,0 +1,87 @@
+package name.uhmann.pathintersection;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VectorSegmentKernelTest {
+
+    private final SegmentKernel vector = new VectorSegmentKernel();
+    private final SegmentKernel scalar = new SegmentKernel.Scalar();
+
+    @Test
+    public void vectorKernelIsLoaded() throws Exception {
+        assertTrue(SegmentKernel.get() instanceof VectorSegmentKernel);
+    }
+
+    @Test
+    public void hitsMatchScalarKernel() throws Exception {
+        Random random = new Random(11);
+
+        for (int run = 0; run < 20000; run++) {
+            // a coarse grid produces lots of touching, colinear and zero-length lines
+            double scale = run % 2 == 0 ? 4 : 1000;
+            int length = 2 + random.nextInt(SegmentKernel.MAX_LINES);
+            double[] xs = new double[length + random.nextInt(8)];
+            double[] ys = new double[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = coordinate(random, scale, run);
+                ys[i] = coordinate(random, scale, run);
+            }
+
+            double px = coordinate(random, scale, run), py = coordinate(random, scale, run);
+            double qx = coordinate(random, scale, run), qy = coordinate(random, scale, run);
+            int from = random.nextInt(length - 1);
+            int to = from + 1 + random.nextInt(length - 1 - from);
+
+            assertEquals("run " + run,
+                    scalar.intersections(px, py, qx, qy, xs, ys, from, to),
+                    vector.intersections(px, py, qx, qy, xs, ys, from, to));
+        }
+    }
+
+    @Test
+    public void notANumberIsDecidedLikeScalarKernel() throws Exception {
+        double[] xs = {0, 2, Double.NaN, 0, 2, 0};
+        double[] ys = {0, 2, 1, 2, 0, 1};
+
+        assertEquals(scalar.intersections(0, 1, 2, 1, xs, ys, 0, 5),
+                vector.intersections(0, 1, 2, 1, xs, ys, 0, 5));
+    }
+
+    @Test
+    public void metricsMatchScalarKernel() throws Exception {
+        Random random = new Random(13);
+        double[] xs = new double[SegmentKernel.MAX_LINES + 1];
+        double[] ys = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(100);
+            ys[i] = random.nextInt(100);
+        }
+
+        IntersectionMetrics previous = IntersectionMetrics.get();
+        try {
+            IntersectionMetrics scalarMetrics = new IntersectionMetrics();
+            IntersectionMetrics.install(scalarMetrics);
+            scalar.intersections(20, 30, 60, 50, xs, ys, 0, SegmentKernel.MAX_LINES);
+
+            IntersectionMetrics vectorMetrics = new IntersectionMetrics();
+            IntersectionMetrics.install(vectorMetrics);
+            vector.intersections(20, 30, 60, 50, xs, ys, 0, SegmentKernel.MAX_LINES);
+
+            // a build without metrics records nothing at all
+            assertEquals(IntersectionMetrics.ENABLED ? SegmentKernel.MAX_LINES : 0,
+                    vectorMetrics.getSegmentPairTests());
+            assertEquals(scalarMetrics.getBoundingBoxRejections(),
+                    vectorMetrics.getBoundingBoxRejections());
+        } finally {
+            IntersectionMetrics.install(previous);
+        }
+    }
+
+    private static double coordinate(Random random, double scale, int run) {
+        return run % 2 == 0 ? random.nextInt((int) scale) : random.nextDouble() * scale;
+    }
+}